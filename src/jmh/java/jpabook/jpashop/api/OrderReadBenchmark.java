@@ -0,0 +1,213 @@
+package jpabook.jpashop.api;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jpabook.jpashop.JpashopApplication;
+import jpabook.jpashop.repository.MemberNameIndex;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 주문 조회 방식(V1~V5)별 처리량 / op당 할당량 / op당 쿼리 수
+ * gradle jmh -Pjmh.includes=OrderReadBenchmark -Pjmh.orders=1000,100000,1000000
+ * - orders : 미리 넣어둘 주문 수 (주문마다 배송 1개, 주문상품 2개, 회원 1000명, 상품 100개)
+ *
+ * 결과 읽는 법 (build/results/jmh/results.json)
+ * - 처리량 : ops/s
+ * - 할당량 : gc.alloc.rate.norm (B/op)
+ * - 쿼리 수 : statements (쿼리/s) / 처리량 = op당 쿼리 수 (teardown 로그에도 op당 값 출력)
+ *
+ * 측정 범위
+ * - 컨트롤러 메서드를 그대로 호출 (JSON 직렬화는 제외 - V1은 엔티티 직접 노출이라 직렬화 자체가 안됨)
+ * - 요청마다 OSIV처럼 영속성 컨텍스트를 열고 닫음 (컨트롤러의 지연로딩이 동작하도록, 트랜잭션은 없음)
+ * - V1, V2는 검색 쿼리(findAllByCriteria)가 최대 1000건이라 orders가 커도 1000건만 읽음
+ * - V3 컨트롤러의 System.out 디버그 출력은 버림 (출력 비용은 포함)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class OrderReadBenchmark {
+
+    private static final long ID_BASE = 1_000_000_000L;
+    private static final int MEMBERS = 1000;
+    private static final int ITEMS = 100;
+
+    @State(Scope.Benchmark)
+    public static class Database {
+
+        @Param({"1000", "100000", "1000000"})
+        public int orders;
+
+        ConfigurableApplicationContext context;
+        EntityManagerFactory emf;
+        Statistics statistics;
+        OrderSimpleApiController simpleApi;
+        OrderApiController orderApi;
+        PrintStream stdout;
+
+        @Setup(Level.Trial)
+        public void start() {
+            context = new SpringApplicationBuilder(JpashopApplication.class)
+                    .web(WebApplicationType.NONE)
+                    .properties(
+                            "spring.datasource.url=jdbc:h2:mem:jmh",
+                            "spring.main.banner-mode=off",
+                            "spring.jpa.properties.hibernate.show_sql=false",
+                            "spring.jpa.properties.hibernate.generate_statistics=true",
+                            "logging.level.root=warn",
+                            "logging.level.org.hibernate.SQL=warn",
+                            "logging.level.org.hibernate.type=warn",
+                            "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn")
+                    .run();
+            emf = context.getBean(EntityManagerFactory.class);
+            statistics = emf.unwrap(SessionFactory.class).getStatistics();
+            simpleApi = context.getBean(OrderSimpleApiController.class);
+            orderApi = context.getBean(OrderApiController.class);
+            seed(context.getBean(JdbcTemplate.class), orders);
+            // SQL로 넣은 회원은 이름 인덱스(member_name_trigram)가 없음
+            context.getBean(MemberNameIndex.class).indexMissing();
+
+            stdout = System.out;
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            System.setOut(stdout);
+            context.close();
+        }
+
+        /**
+         * OSIV처럼 영속성 컨텍스트 하나를 열어둔 채로 실행
+         */
+        Object read(Queries queries, Supplier<Object> controller) {
+            long before = statistics.getPrepareStatementCount();
+            EntityManager em = emf.createEntityManager();
+            TransactionSynchronizationManager.bindResource(emf, new EntityManagerHolder(em));
+            try {
+                return controller.get();
+            } finally {
+                TransactionSynchronizationManager.unbindResource(emf);
+                em.close();
+                queries.statements += statistics.getPrepareStatementCount() - before;
+                queries.operations++;
+            }
+        }
+
+        /**
+         * 엔티티를 하나씩 저장하면 100만건에 몇 분 걸려서 H2 system_range로 한번에 insert
+         * (id는 InitDb 데이터와 안 겹치게 ID_BASE부터)
+         */
+        private static void seed(JdbcTemplate jdbcTemplate, int orders) {
+            jdbcTemplate.update("insert into member (member_id, name, city, street, zipcode)" +
+                    " select ? + x, 'jmh-member-' || x, '서울', '강가', '123-123' from system_range(1, ?)", ID_BASE, MEMBERS);
+            jdbcTemplate.update("insert into item (dtype, item_id, name, price, stock_quantity, version)" +
+                    " select 'B', ? + x, 'jmh-book-' || x, 10000, 1000000, 0 from system_range(1, ?)", ID_BASE, ITEMS);
+            jdbcTemplate.update("insert into delivery (delivery_id, city, street, zipcode, status)" +
+                    " select ? + x, '서울', '강가', '123-123', 'READY' from system_range(1, ?)", ID_BASE, orders);
+            jdbcTemplate.update("insert into orders (order_id, member_id, delivery_id, order_date, status, version)" +
+                    " select ? + x, ? + mod(x, ?) + 1, ? + x, current_timestamp, 'ORDER', 0 from system_range(1, ?)",
+                    ID_BASE, ID_BASE, MEMBERS, ID_BASE, orders);
+            jdbcTemplate.update("insert into order_item (order_item_id, order_id, item_id, order_price, count)" +
+                    " select ? + x, ? + (x + 1) / 2, ? + mod(x, ?) + 1, 10000, 1 from system_range(1, ?)",
+                    ID_BASE, ID_BASE, ID_BASE, ITEMS, 2L * orders);
+        }
+    }
+
+    /**
+     * 실행한 쿼리 수 (JMH 보조 결과)
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Queries {
+
+        public long statements;
+        long operations;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            statements = 0;
+            operations = 0;
+        }
+
+        @TearDown(Level.Iteration)
+        public void report() {
+            if (operations > 0) {
+                System.err.printf("%n  queries/op = %.1f%n", (double) statements / operations);
+            }
+        }
+    }
+
+    //==================================================================================== XToOne (OrderSimpleApiController)
+    @Benchmark
+    public Object simpleV1_entity_lazy(Database db, Queries queries) {
+        return db.read(queries, db.simpleApi::orderV1);
+    }
+
+    @Benchmark
+    public Object simpleV2_entity_to_dto(Database db, Queries queries) {
+        return db.read(queries, db.simpleApi::ordersV2);
+    }
+
+    @Benchmark
+    public Object simpleV3_fetch_join(Database db, Queries queries) {
+        return db.read(queries, db.simpleApi::ordersV3);
+    }
+
+    @Benchmark
+    public Object simpleV4_dto_projection(Database db, Queries queries) {
+        return db.read(queries, db.simpleApi::ordersV4);
+    }
+
+    //==================================================================================== 컬렉션 (OrderApiController)
+    @Benchmark
+    public Object orderV1_entity_lazy(Database db, Queries queries) {
+        return db.read(queries, db.orderApi::ordersV1);
+    }
+
+    @Benchmark
+    public Object orderV2_entity_to_dto(Database db, Queries queries) {
+        return db.read(queries, db.orderApi::ordersV2);
+    }
+
+    @Benchmark
+    public Object orderV3_fetch_join(Database db, Queries queries) {
+        return db.read(queries, db.orderApi::ordersV3);
+    }
+
+    @Benchmark
+    public Object orderV3_1_keyset_page(Database db, Queries queries) {
+        return db.read(queries, () -> db.orderApi.ordersV3_page(0L, 100));
+    }
+
+    @Benchmark
+    public Object orderV4_dto_in_query(Database db, Queries queries) {
+        return db.read(queries, db.orderApi::ordersV4);
+    }
+
+    @Benchmark
+    public Object orderV5_dto_flat(Database db, Queries queries) {
+        return db.read(queries, db.orderApi::ordersV5);
+    }
+}
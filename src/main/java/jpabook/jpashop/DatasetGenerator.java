@@ -0,0 +1,368 @@
+package jpabook.jpashop;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.*;
+import jpabook.jpashop.domain.item.Album;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.domain.item.Movie;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+/**
+ * 성능 테스트용 데이터 생성 (InitDb 대신) - --spring.profiles.active=dataset 또는 gradle generateDataset
+ * 크기는 jpashop.dataset.* 설정 (application.yml의 dataset 프로파일 참고)
+ *
+ * 1. 상품 : Book, Album, Movie 각각 books/albums/movies개
+ * 2. 회원 : members개, 회원마다 주문 0 ~ orders-per-member*2개 (평균 orders-per-member)
+ *    주문마다 상품 1 ~ items-per-order개, 상품은 인기 순위에 따라 skew 지수의 Zipf 분포로 고름 (0이면 균등)
+ *
+ * 회원/상품 번호마다 seed로 만든 난수를 따로 써서 workers 수, chunk-size와 상관없이 같은 내용이 만들어짐 (id 값은 스레드마다 달라질 수 있음)
+ * chunk-size명씩 한 트랜잭션, 그 안에서 FLUSH_INTERVAL명마다 flush/clear (insert는 hibernate.jdbc.batch_size로 배치 전송)
+ * 재고는 건드리지 않음 (주문은 이미 끝난 과거 주문이라고 봄)
+ *
+ * MemberNameIndex(trigram이 없는 회원을 채움), MemberNameFilter는 ApplicationReadyEvent(러너 실행 후)에 DB에서 읽으니까 따로 넣지 않음
+ * (exit=true로 바로 종료하면 회원 이름 인덱스는 다음에 시작할 때 채워짐)
+ */
+@Slf4j
+@Component
+@Profile("dataset")
+public class DatasetGenerator implements ApplicationRunner {
+
+    private static final int FLUSH_INTERVAL = 100;
+    private static final long ITEM_STREAM = 0x9E3779B97F4A7C15L;
+    private static final long MEMBER_STREAM = 0xC2B2AE3D27D4EB4FL;
+    private static final String[] CITIES = {"서울", "부산", "대구", "인천", "광주", "대전", "울산", "세종"};
+
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final ConfigurableApplicationContext context;
+
+    private final long seed;
+    private final int members;
+    private final int books;
+    private final int albums;
+    private final int movies;
+    private final int ordersPerMember;
+    private final int itemsPerOrder;
+    private final double skew;
+    private final double cancelRatio;
+    private final LocalDateTime until;
+    private final int days;
+    private final int workers;
+    private final int chunkSize;
+    private final boolean exit;
+
+    // 인기 순위별 누적 확률, 순위 -> 상품 번호
+    private final double[] popularity;
+    private final int[] itemByRank;
+
+    public DatasetGenerator(EntityManager em,
+                            TransactionTemplate transactionTemplate,
+                            ConfigurableApplicationContext context,
+                            @Value("${jpashop.dataset.seed:42}") long seed,
+                            @Value("${jpashop.dataset.members:100000}") int members,
+                            @Value("${jpashop.dataset.books:5000}") int books,
+                            @Value("${jpashop.dataset.albums:3000}") int albums,
+                            @Value("${jpashop.dataset.movies:2000}") int movies,
+                            @Value("${jpashop.dataset.orders-per-member:5}") int ordersPerMember,
+                            @Value("${jpashop.dataset.items-per-order:3}") int itemsPerOrder,
+                            @Value("${jpashop.dataset.skew:1.0}") double skew,
+                            @Value("${jpashop.dataset.cancel-ratio:0.1}") double cancelRatio,
+                            @Value("${jpashop.dataset.until:2025-01-01T00:00}") LocalDateTime until,
+                            @Value("${jpashop.dataset.days:365}") int days,
+                            @Value("${jpashop.dataset.workers:4}") int workers,
+                            @Value("${jpashop.dataset.chunk-size:500}") int chunkSize,
+                            @Value("${jpashop.dataset.exit:false}") boolean exit) {
+        if (books + albums + movies <= 0 && ordersPerMember > 0) {
+            throw new IllegalArgumentException("jpashop.dataset: orders need at least one item");
+        }
+        this.em = em;
+        this.transactionTemplate = transactionTemplate;
+        this.context = context;
+        this.seed = seed;
+        this.members = members;
+        this.books = books;
+        this.albums = albums;
+        this.movies = movies;
+        this.ordersPerMember = ordersPerMember;
+        this.itemsPerOrder = Math.max(1, itemsPerOrder);
+        this.skew = skew;
+        this.cancelRatio = cancelRatio;
+        this.until = until;
+        this.days = Math.max(1, days);
+        this.workers = Math.max(1, workers);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.exit = exit;
+
+        int itemCount = books + albums + movies;
+        this.popularity = new double[itemCount];
+        double total = 0;
+        for (int rank = 0; rank < itemCount; rank++) {
+            total += 1 / Math.pow(rank + 1, skew);
+            popularity[rank] = total;
+        }
+        for (int rank = 0; rank < itemCount; rank++) {
+            popularity[rank] /= total;
+        }
+        // 인기 순위를 상품 번호(= 종류, id 순서)와 상관없게 섞음
+        this.itemByRank = new int[itemCount];
+        for (int i = 0; i < itemCount; i++) {
+            itemByRank[i] = i;
+        }
+        SplittableRandom shuffle = new SplittableRandom(seed);
+        for (int i = itemCount - 1; i > 0; i--) {
+            int j = shuffle.nextInt(i + 1);
+            int tmp = itemByRank[i];
+            itemByRank[i] = itemByRank[j];
+            itemByRank[j] = tmp;
+        }
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        generate();
+        if (exit) {
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+
+    public void generate() {
+        long start = System.nanoTime();
+        int itemCount = books + albums + movies;
+        log.info("dataset: seed={}, {} members, {} books, {} albums, {} movies, {} orders/member, {} items/order, skew {}, {} workers",
+                seed, members, books, albums, movies, ordersPerMember, itemsPerOrder, skew, workers);
+
+        ItemRef[] items = new ItemRef[itemCount];
+        inParallel("items", itemCount, (from, to) -> saveItems(from, to, items));
+        inParallel("members", members, (from, to) -> saveMembers(from, to, items));
+
+        log.info("dataset: done in {} s", (System.nanoTime() - start) / 1_000_000_000);
+    }
+
+    //==== 생성 계획 (번호와 seed만으로 결정) ====//
+
+    public record ItemPlan(String type, String name, int price, int stockQuantity, String maker, String isbn) {
+    }
+
+    public record MemberPlan(String name, Address address, List<OrderPlan> orders) {
+    }
+
+    public record OrderPlan(LocalDateTime orderDate, OrderStatus status, DeliveryStatus deliveryStatus, List<LinePlan> lines) {
+    }
+
+    /**
+     * @param item 상품 번호 (0 ~ books+albums+movies-1)
+     */
+    public record LinePlan(int item, int count) {
+    }
+
+    public ItemPlan itemPlan(int index) {
+        SplittableRandom random = new SplittableRandom(seed ^ (index * ITEM_STREAM));
+        int price = (10 + random.nextInt(491)) * 100;
+        int stockQuantity = 100 + random.nextInt(9901);
+        String isbn = String.format("979-%010d", random.nextLong(10_000_000_000L));
+        if (index < books) {
+            return new ItemPlan("Book", "Book " + index, price, stockQuantity, "author-" + random.nextInt(1000), isbn);
+        }
+        if (index < books + albums) {
+            return new ItemPlan("Album", "Album " + index, price, stockQuantity, "artist-" + random.nextInt(1000), null);
+        }
+        return new ItemPlan("Movie", "Movie " + index, price, stockQuantity, "director-" + random.nextInt(1000), isbn);
+    }
+
+    public MemberPlan memberPlan(int index) {
+        SplittableRandom random = new SplittableRandom(seed ^ (index * MEMBER_STREAM));
+        Address address = new Address(CITIES[random.nextInt(CITIES.length)],
+                "street-" + random.nextInt(10_000),
+                String.format("%05d", random.nextInt(100_000)));
+
+        int orderCount = ordersPerMember == 0 ? 0 : random.nextInt(ordersPerMember * 2 + 1);
+        List<OrderPlan> orders = new ArrayList<>(orderCount);
+        LocalDateTime delivered = until.minusDays(3);
+        for (int i = 0; i < orderCount; i++) {
+            LocalDateTime orderDate = until.minusSeconds(random.nextLong(days * 86_400L));
+            boolean canceled = random.nextDouble() < cancelRatio;
+            // 한 주문 안에서는 서로 다른 상품
+            int lineCount = Math.min(1 + random.nextInt(itemsPerOrder), itemByRank.length);
+            List<LinePlan> lines = new ArrayList<>(lineCount);
+            while (lines.size() < lineCount) {
+                int item = pickItem(random);
+                if (lines.stream().noneMatch(line -> line.item() == item)) {
+                    lines.add(new LinePlan(item, 1 + random.nextInt(3)));
+                }
+            }
+            orders.add(new OrderPlan(orderDate,
+                    canceled ? OrderStatus.CANCEL : OrderStatus.ORDER,
+                    !canceled && orderDate.isBefore(delivered) ? DeliveryStatus.COMP : DeliveryStatus.READY,
+                    lines));
+        }
+        return new MemberPlan("member-" + index, address, orders);
+    }
+
+    private int pickItem(SplittableRandom random) {
+        int rank = Arrays.binarySearch(popularity, random.nextDouble());
+        if (rank < 0) {
+            rank = -rank - 1;
+        }
+        return itemByRank[Math.min(rank, itemByRank.length - 1)];
+    }
+
+    //==== 저장 ====//
+
+    private record ItemRef(long id, int price) {
+    }
+
+    /**
+     * 저장하면서 상품 번호 -> id, 가격을 items에 기록 (스레드마다 맡은 번호 칸만 씀, inParallel이 끝날 때까지 기다린 뒤 읽음)
+     * 이름으로 다시 찾지 않으니 DB에 다른 상품(InitDb 상품, 이전 실행의 상품)이 있어도 상관없음
+     */
+    private void saveItems(int from, int to, ItemRef[] items) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = from; i < to; i++) {
+                Item item = toItem(itemPlan(i));
+                em.persist(item);
+                items[i] = new ItemRef(item.getId(), item.getPrice());
+                if ((i - from + 1) % FLUSH_INTERVAL == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+            em.flush();
+            em.clear();
+        });
+    }
+
+    private static Item toItem(ItemPlan plan) {
+        Item item;
+        switch (plan.type()) {
+            case "Book" -> {
+                Book book = new Book();
+                book.setAuthor(plan.maker());
+                book.setIsbn(plan.isbn());
+                item = book;
+            }
+            case "Album" -> {
+                Album album = new Album();
+                album.setArtist(plan.maker());
+                item = album;
+            }
+            default -> {
+                Movie movie = new Movie();
+                movie.setDirector(plan.maker());
+                movie.setIsbn(plan.isbn());
+                item = movie;
+            }
+        }
+        item.setName(plan.name());
+        item.setPrice(plan.price());
+        item.setStockQuantity(plan.stockQuantity());
+        return item;
+    }
+
+    private void saveMembers(int from, int to, ItemRef[] items) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = from; i < to; i++) {
+                MemberPlan plan = memberPlan(i);
+                Member member = new Member();
+                member.setName(plan.name());
+                member.setAddress(plan.address());
+                em.persist(member);
+
+                for (OrderPlan orderPlan : plan.orders()) {
+                    em.persist(toOrder(member, orderPlan, items));
+                }
+                if ((i - from + 1) % FLUSH_INTERVAL == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+            em.flush();
+            em.clear();
+        });
+    }
+
+    private Order toOrder(Member member, OrderPlan plan, ItemRef[] items) {
+        OrderItem[] orderItems = new OrderItem[plan.lines().size()];
+        for (int i = 0; i < orderItems.length; i++) {
+            LinePlan line = plan.lines().get(i);
+            ItemRef item = items[line.item()];
+            // 재고는 그대로 => select 없이 참조만
+            orderItems[i] = OrderItem.createStockAppliedOrderItem(em.getReference(Item.class, item.id()), item.price(), line.count());
+        }
+
+        Delivery delivery = new Delivery();
+        delivery.setAddress(member.getAddress());
+        delivery.setStatus(plan.deliveryStatus());
+
+        Order order = Order.createOrder(member, delivery, orderItems);
+        order.setOrderDate(plan.orderDate());
+        order.setStatus(plan.status());
+        return order;
+    }
+
+    private interface RangeTask {
+        void run(int from, int to);
+    }
+
+    /**
+     * 0 ~ count-1 을 chunkSize씩 나눠서 workers개 스레드로 저장
+     */
+    private void inParallel(String name, int count, RangeTask task) {
+        if (count <= 0) {
+            return;
+        }
+        long start = System.nanoTime();
+        AtomicLong done = new AtomicLong();
+        long logEvery = Math.max(chunkSize, count / 20);
+        IntConsumer progress = size -> {
+            long before = done.getAndAdd(size);
+            if ((before + size) / logEvery != before / logEvery) {
+                long elapsed = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+                log.info("dataset: {} {}/{} ({}/s)", name, before + size, count, (before + size) * 1000 / elapsed);
+            }
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int from = 0; from < count; from += chunkSize) {
+                int chunkFrom = from;
+                int chunkTo = Math.min(count, from + chunkSize);
+                futures.add(executor.submit(() -> {
+                    task.run(chunkFrom, chunkTo);
+                    progress.accept(chunkTo - chunkFrom);
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("dataset generation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("dataset generation failed: " + name, e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
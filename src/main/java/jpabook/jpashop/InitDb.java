@@ -4,7 +4,15 @@ import jakarta.annotation.PostConstruct;
 import jakarta.persistence.EntityManager;
 import jpabook.jpashop.domain.*;
 import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.MemberNameFilter;
+import jpabook.jpashop.repository.MemberNameIndex;
+import jpabook.jpashop.service.ItemCatalogCache;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -16,17 +24,42 @@ import org.springframework.transaction.annotation.Transactional;
  * * userB
  *   * SPRING1 BOOK
  *   * SPRING2 BOOK
+ *
+ * 성능 테스트용 대량 데이터는 dataset 프로파일 (DatasetGenerator)
+ * jpashop.init-db.deferred=true (fast-start 프로파일)면 시작을 막지 않도록 준비 완료(ApplicationReadyEvent) 뒤에 별도 스레드에서
  */
+@Slf4j
 @Component
+@Profile("!dataset")
 @RequiredArgsConstructor
 public class InitDb {
 
     private final InitService initService;
 
+    @Value("${jpashop.init-db.deferred:false}")
+    private boolean deferred;
+
     @PostConstruct
     public void init() {
+        if (!deferred) {
+            seed();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initAfterReady() {
+        if (deferred) {
+            Thread seeder = new Thread(this::seed, "init-db");
+            seeder.setDaemon(true);
+            seeder.start();
+        }
+    }
+
+    private void seed() {
+        long start = System.nanoTime();
         initService.dbInit1();
         initService.dbInit2();
+        log.info("init db: seeded in {} ms", (System.nanoTime() - start) / 1_000_000);
     }
 
     @Component
@@ -35,6 +68,9 @@ public class InitDb {
     static class InitService {
 
         private final EntityManager em;
+        private final MemberNameIndex memberNameIndex;
+        private final MemberNameFilter memberNameFilter;
+        private final ItemCatalogCache itemCatalogCache;
 
         public void dbInit1() {
             Member member = new Member();
@@ -61,6 +97,7 @@ public class InitDb {
             delivery.setAddress(member.getAddress());
             Order order1 = Order.createOrder(member, delivery, orderItem1, orderItem2);
             em.persist(order1);
+            published(member, book1, book2);
         }
 
         public void dbInit2() {
@@ -88,6 +125,19 @@ public class InitDb {
             delivery.setAddress(member.getAddress());
             Order order2 = Order.createOrder(member, delivery, orderItem1, orderItem2);
             em.persist(order2);
+            published(member, book1, book2);
+        }
+
+        /**
+         * 회원 이름 색인은 같은 트랜잭션에서 저장
+         * 시딩이 준비 완료 뒤로 미뤄지면(deferred) 회원 이름 필터, 상품 카탈로그 캐시가 이미 올라와 있을 수 있음 => 같이 반영
+         */
+        private void published(Member member, Book... books) {
+            memberNameFilter.put(member.getName());
+            memberNameIndex.add(member.getId(), member.getName());
+            for (Book book : books) {
+                itemCatalogCache.evictAfterCommit(book.getId());
+            }
         }
     }
-}
\ No newline at end of file
+}
@@ -2,6 +2,8 @@ package jpabook.jpashop.api;
 
 import jakarta.validation.Valid;
 import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.service.MemberImportResult;
+import jpabook.jpashop.service.MemberImportService;
 import jpabook.jpashop.service.MemberService;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -10,6 +12,10 @@ import lombok.Value;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -19,6 +25,7 @@ import java.util.stream.Collectors;
 public class MemberApiController {
 
     private final MemberService memberService;
+    private final MemberImportService memberImportService;
 
     @PostMapping("/api/v1/members")
     public CreateMemberResponse saveMemberV1(@RequestBody @Valid Member member) {
@@ -134,18 +141,14 @@ public class MemberApiController {
     }
 
 
-
-
-
-
-
-
-
-
-
-
-
-
-
-
+//==========================================================================================================
+    /**
+     * 회원 대량 가져오기 (CSV)
+     * 요청 본문을 그대로 한 줄씩 읽으면서 저장 (파일 전체를 메모리에 올리지 않음)
+     * ex) curl -X POST -H "Content-Type: text/csv" --data-binary @members.csv /api/members/import
+     */
+    @PostMapping(value = "/api/members/import", consumes = {"text/csv", "text/plain"})
+    public MemberImportResult importMembers(InputStream body) throws IOException {
+        return memberImportService.importCsv(new InputStreamReader(body, StandardCharsets.UTF_8));
+    }
 }
@@ -1,26 +1,64 @@
 package jpabook.jpashop.api;
 
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
 import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderItem;
 import jpabook.jpashop.domain.OrderStatus;
 import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import jpabook.jpashop.exception.OrderQueueFullException;
+import jpabook.jpashop.service.OrderCommand;
+import jpabook.jpashop.service.OrderExportService;
+import jpabook.jpashop.service.OrderIntakeQueue;
+import jpabook.jpashop.service.OrderService;
+import jpabook.jpashop.service.OrderTicket;
+import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.net.URI;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @RestController
 @RequiredArgsConstructor
 public class OrderApiController {
 
+    // 한 페이지 최대 건수 (findAllByCriteria의 최대 1000건과 동일)
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    // 대량 주문 한번에 받는 최대 주문 수
+    private static final int MAX_BULK_SIZE = 10_000;
+
+    private static final String NDJSON = "application/x-ndjson";
+
     private final OrderRepository orderRepository;
+    private final OrderQueryRepository orderQueryRepository;
+    private final OrderExportService orderExportService;
+    private final OrderService orderService;
+    private final OrderIntakeQueue orderIntakeQueue;
 
     //==================================================================================== V1 : ENTITY를 그대로 노출시키는 방법
     /**
@@ -116,7 +154,170 @@ public class OrderApiController {
         return result;
     }
 
+    //==================================================================================== V3.1 : ENTITY를 DTO로 변환 (keyset 페이징)
+    /**
+     * 1단계 : ToOne(member, delivery)은 fetch join + order id 기준 keyset 페이징
+     * 2단계 : 컬렉션(orderItems, item)은 해당 페이지의 order id로 IN 쿼리 한번
+     * => 페이지당 쿼리 2번, 1:N 조인이 없으니 페이징 가능
+     * 다음 페이지는 마지막 orderId를 after로 넘겨서 조회
+     */
+    @GetMapping("/api/v3.1/orders")
+    public List<OrderDto> ordersV3_page(
+            @RequestParam(value = "after", defaultValue = "0") Long after,
+            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        List<Order> orders = orderRepository.findAllWithMemberDelivery(after, Math.min(Math.max(limit, 1), MAX_PAGE_SIZE));
+        orderRepository.fetchOrderItems(orders);
+
+        List<OrderDto> result = orders.stream()
+                .map(o -> new OrderDto(o))
+                .collect(Collectors.toList());
+
+        return result;
+    }
+
+
+    //==================================================================================== V4 : JPA에서 DTO로 바로 조회 (컬렉션은 IN 쿼리)
+    /**
+     * 주문 DTO 조회 1번 + 주문상품 IN 조회 1번 => 데이터 양과 상관없이 쿼리 2번
+     * 쿼리는 repository > order > query에 따로 둠
+     */
+    @GetMapping("/api/v4/orders")
+    public List<OrderQueryDto> ordersV4() {
+        return orderQueryRepository.findAllByDto_optimization();
+    }
+
+    //==================================================================================== V5 : JPA에서 DTO로 바로 조회 (플랫 데이터 1번)
+    /**
+     * 전부 조인한 flat row를 쿼리 1번으로 가져와서 메모리에서 주문별로 묶음
+     * 장점 : DB 왕복 1번
+     * 단점 : 1:N 조인이라 주문 컬럼이 주문상품 수만큼 중복되서 전송됨, 주문 기준 페이징 불가
+     */
+    @GetMapping("/api/v5/orders")
+    public List<OrderQueryDto> ordersV5() {
+        return orderQueryRepository.findAllByDto_flat();
+    }
 
-    //==================================================================================== V4 : ENTITY를 DTO로 변환 (fetch 조인)
+    //==================================================================================== 전체 주문 내보내기 (NDJSON 스트리밍)
+    /**
+     * 배치/야간 추출용
+     * 전체를 List로 만들어서 반환하지 않고, DB 커서로 읽으면서 한 줄(주문 하나)씩 바로 응답에 씀
+     * => 주문 테이블 크기와 상관없이 힙 사용량 일정
+     */
+    @GetMapping(value = "/api/orders/stream", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> ordersStream() {
+        StreamingResponseBody body = out -> orderExportService.exportOrders(out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(body);
+    }
+
+    //==================================================================================== 주문 생성 (장바구니)
+    /**
+     * 상품 여러개를 주문 하나로 (주문 N번 => 트랜잭션 N번, 회원 조회 N번 하던 것을 한번에)
+     * 같은 상품이 여러 줄이면 수량을 합침
+     */
+    @PostMapping("/api/v2/orders")
+    public CreateOrderResponse saveOrderV2(@RequestBody @Valid CreateOrderRequest request) {
+        Map<Long, Integer> itemCounts = request.getLines().stream()
+                .collect(Collectors.toMap(OrderLineRequest::getItemId, OrderLineRequest::getCount, Integer::sum));
+        Long orderId = orderService.order(request.getMemberId(), itemCounts);
+        return new CreateOrderResponse(orderId);
+    }
+
+    @Data
+    static class CreateOrderRequest {
+        @NotNull
+        private Long memberId;
+        @NotEmpty
+        private List<@Valid OrderLineRequest> lines;
+    }
+
+    @Data
+    static class OrderLineRequest {
+        @NotNull
+        private Long itemId;
+        @Positive
+        private int count;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class CreateOrderResponse {
+        private Long orderId;
+    }
+
+    //==================================================================================== 주문 생성 (비동기 접수)
+    /**
+     * 검증 후 큐에 넣고 바로 202 + 접수표 (저장은 OrderIntakeQueue 쓰기 스레드가 여러 주문을 한 트랜잭션으로)
+     * 큐가 가득 차면 503 + Retry-After
+     */
+    @PostMapping("/api/v2/orders/async")
+    public ResponseEntity<OrderTicketResponse> saveOrderAsync(@RequestBody @Valid CreateOrderRequest request) {
+        Map<Long, Integer> itemCounts = request.getLines().stream()
+                .collect(Collectors.toMap(OrderLineRequest::getItemId, OrderLineRequest::getCount, Integer::sum));
+        OrderTicket ticket = orderIntakeQueue.submit(request.getMemberId(), itemCounts);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/orders/tickets/" + ticket.getId()))
+                .body(new OrderTicketResponse(ticket));
+    }
+
+    /**
+     * 접수표 상태 조회 (QUEUED => COMPLETED(orderId) / FAILED(message))
+     */
+    @GetMapping("/api/orders/tickets/{ticketId}")
+    public ResponseEntity<OrderTicketResponse> orderTicket(@PathVariable("ticketId") String ticketId) {
+        return orderIntakeQueue.findTicket(ticketId)
+                .map(ticket -> ResponseEntity.ok(new OrderTicketResponse(ticket)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @ExceptionHandler(OrderQueueFullException.class)
+    public ResponseEntity<String> orderQueueFull(OrderQueueFullException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(e.getMessage());
+    }
+
+    @Data
+    static class OrderTicketResponse {
+        private String ticketId;
+        private OrderTicket.Status status;
+        private Long orderId;
+        private String message;
+
+        public OrderTicketResponse(OrderTicket ticket) {
+            ticketId = ticket.getId();
+            status = ticket.getStatus();
+            orderId = ticket.getOrderId();
+            message = ticket.getMessage();
+        }
+    }
+
+    //==================================================================================== 대량 주문 (마켓플레이스 피드)
+    /**
+     * 주문 수천건을 한번에 (JDBC 배치 insert + chunk마다 flush/clear)
+     * 전부 저장되거나 전부 실패
+     */
+    @PostMapping("/api/orders/bulk")
+    public BulkOrderResponse saveOrdersBulk(@RequestBody @Valid BulkOrderRequest request) {
+        List<OrderCommand> commands = request.getOrders().stream()
+                .map(order -> new OrderCommand(order.getMemberId(), order.getLines().stream()
+                        .collect(Collectors.toMap(OrderLineRequest::getItemId, OrderLineRequest::getCount, Integer::sum))))
+                .collect(Collectors.toList());
+        return new BulkOrderResponse(orderService.bulkOrder(commands));
+    }
+
+    @Data
+    static class BulkOrderRequest {
+        @NotEmpty
+        @Size(max = MAX_BULK_SIZE)
+        private List<@Valid CreateOrderRequest> orders;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class BulkOrderResponse {
+        private int count;
+    }
 
 }
@@ -0,0 +1,37 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryDto;
+import jpabook.jpashop.repository.order.simplequery.ReactiveOrderSimpleQueryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+/**
+ * OrderSimpleApiController(v4)의 리액티브 버전 : 대시보드처럼 오래 붙어서 천천히 읽는 클라이언트용
+ * Flux를 반환하면 Spring MVC가 비동기 요청으로 바꾸고 서블릿 스레드는 바로 반납
+ * 스트리밍 타입(NDJSON, SSE)이면 한 건 쓰고 나서 다음 한 건을 request => 응답을 못 받아가는 만큼 DB도 덜 읽음
+ * (Accept가 application/json이면 전부 모아서 JSON 배열로 응답하므로 스트리밍 타입만 받음)
+ */
+@RestController
+@RequiredArgsConstructor
+public class OrderSimpleReactiveApiController {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final ReactiveOrderSimpleQueryRepository reactiveOrderSimpleQueryRepository;
+
+    /**
+     * @param after 이 order id 다음부터 (끊긴 뒤 이어받기)
+     * @param pageSize DB에서 한번에 읽는 주문 수
+     */
+    @GetMapping(value = "/api/reactive/simple-orders",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<OrderSimpleQueryDto> orders(
+            @RequestParam(value = "after", defaultValue = "0") Long after,
+            @RequestParam(value = "pageSize", defaultValue = "100") int pageSize) {
+        return reactiveOrderSimpleQueryRepository.findOrderDtos(after, Math.min(Math.max(pageSize, 1), MAX_PAGE_SIZE));
+    }
+}
@@ -0,0 +1,39 @@
+package jpabook.jpashop.config;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+
+/**
+ * Hibernate 2차 캐시 region별 통계를 actuator 지표로 노출
+ * cache.gets(result=hit/miss), cache.puts, cache.evictions, cache.removals (tag cache=region 이름)
+ * Hibernate가 직접 만든 CacheManager라서 스프링 캐시 자동 지표에는 안 잡힘 => 직접 등록
+ */
+@Configuration
+public class CacheMetricsConfig {
+
+    @Bean
+    public MeterBinder secondLevelCacheMetrics(EntityManagerFactory emf) {
+        return registry -> {
+            RegionFactory regionFactory = emf.unwrap(SessionFactoryImplementor.class)
+                    .getCache()
+                    .getRegionFactory();
+            if (!(regionFactory instanceof JCacheRegionFactory jCacheRegionFactory)) {
+                return; // 2차 캐시를 끈 경우
+            }
+
+            CacheManager cacheManager = jCacheRegionFactory.getCacheManager();
+            for (String region : cacheManager.getCacheNames()) {
+                JCacheMetrics.monitor(registry, cacheManager.getCache(region), Tags.of("layer", "hibernate-l2"));
+            }
+        };
+    }
+}
@@ -0,0 +1,30 @@
+package jpabook.jpashop.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * 지연 초기화(spring.main.lazy-initialization, fast-start 프로파일)에서 빼야 하는 빈
+ * - @Scheduled 메서드가 있는 빈 (StockReservationEngine) : 처음 쓰일 때까지 만들어지지 않으면 주기 작업도 안 돔
+ * - VirtualThreadPinningMonitor : 아무도 주입받지 않아서 지연되면 감시를 시작하지 않음
+ * 나머지(컨트롤러, 서비스, 리포지토리, @EventListener 빈)는 처음 요청/이벤트 때 만들어도 동작이 같음
+ */
+@Configuration
+public class FastStartConfig {
+
+    // BeanFactoryPostProcessor 단계에서 찾으니까 static
+    @Bean
+    static LazyInitializationExcludeFilter eagerBeans() {
+        return (beanName, beanDefinition, beanType) -> beanType != null
+                && (VirtualThreadPinningMonitor.class.isAssignableFrom(beanType) || hasScheduledMethod(beanType));
+    }
+
+    private static boolean hasScheduledMethod(Class<?> beanType) {
+        return !MethodIntrospector.selectMethods(beanType, (MethodIntrospector.MetadataLookup<Boolean>) method ->
+                AnnotatedElementUtils.hasAnnotation(method, Scheduled.class) ? Boolean.TRUE : null).isEmpty();
+    }
+}
@@ -0,0 +1,81 @@
+package jpabook.jpashop.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * 로컬 테스트용 replica 동기화 - H2 두개(primary, replica)를 주기적으로 같은 내용으로 맞춤 (jpashop.datasource.replica.h2-sync)
+ * 실제 DB는 DB 복제를 쓰고 이건 켜지 않음
+ *
+ * 처음 : replica를 비우고 primary 스키마(SCRIPT NODATA, 외래키 제외)를 만든 뒤 primary 테이블마다 linked table(sync_*)을 연결
+ * 매번 : 한 트랜잭션에서 테이블마다 delete 후 linked table에서 insert => 읽는 쪽은 커밋 전까지 이전 내용을 봄
+ * 동기화 주기만큼 replica가 뒤처짐 => ReplicaLagMonitor 지연으로 보임
+ */
+@Slf4j
+public class H2ReplicaSync {
+
+    private static final String LINK_PREFIX = "SYNC_";
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final TransactionTemplate replicaTransaction;
+    private final String primaryUrl;
+    private final String primaryUsername;
+    private final String primaryPassword;
+
+    private List<String> tables;
+
+    public H2ReplicaSync(DataSource primary, DataSource replica, String primaryUrl, String primaryUsername, String primaryPassword) {
+        this.primary = new JdbcTemplate(primary);
+        this.replica = new JdbcTemplate(replica);
+        this.replicaTransaction = new TransactionTemplate(new DataSourceTransactionManager(replica));
+        this.primaryUrl = primaryUrl;
+        this.primaryUsername = primaryUsername;
+        this.primaryPassword = primaryPassword == null ? "" : primaryPassword;
+    }
+
+    @Scheduled(fixedDelayString = "${jpashop.datasource.replica.h2-sync-interval:1s}")
+    public synchronized void sync() {
+        if (tables == null) {
+            tables = copySchema();
+            log.info("h2 replica sync: {} tables linked from {}", tables.size(), primaryUrl);
+        }
+        replicaTransaction.executeWithoutResult(status -> {
+            for (String table : tables) {
+                replica.update("delete from \"" + table + "\"");
+                replica.update("insert into \"" + table + "\" select * from \"" + LINK_PREFIX + table + "\"");
+            }
+        });
+    }
+
+    private List<String> copySchema() {
+        List<String> statements = primary.queryForList("script nodata", String.class);
+        List<String> primaryTables = primary.queryForList(
+                "select table_name from information_schema.tables where table_schema = 'PUBLIC' and table_type = 'BASE TABLE'",
+                String.class);
+
+        replica.execute("drop all objects");
+        for (String statement : statements) {
+            // 읽기 전용이라 외래키는 필요 없음 (테이블마다 지우고 넣는 순서를 신경 안써도 됨)
+            if (statement.contains("FOREIGN KEY") || statement.startsWith("CREATE USER")) {
+                continue;
+            }
+            replica.execute(statement);
+        }
+        for (String table : primaryTables) {
+            replica.execute("create linked table \"" + LINK_PREFIX + table + "\"('org.h2.Driver', "
+                    + literal(primaryUrl) + ", " + literal(primaryUsername) + ", " + literal(primaryPassword) + ", 'PUBLIC', " + literal(table) + ")");
+        }
+        return primaryTables;
+    }
+
+    private static String literal(String value) {
+        return "'" + value.replace("'", "''") + "'";
+    }
+}
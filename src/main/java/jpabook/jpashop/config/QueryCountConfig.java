@@ -0,0 +1,73 @@
+package jpabook.jpashop.config;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.BeanUtils;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.util.ClassUtils;
+
+/**
+ * SQL 수 세기 (QueryCounter)
+ * - Hibernate statement_inspector로 QueryCountInspector 등록
+ * - @Transactional 서비스 메서드마다 범위를 열어서 jpashop.sql.statements{scope=method} 기록
+ * 요청 단위는 QueryCountFilter
+ */
+@Configuration
+public class QueryCountConfig {
+
+    /**
+     * spring.jpa.properties로 다른 statement_inspector를 지정했으면 그 뒤에 연결
+     */
+    @Bean
+    public HibernatePropertiesCustomizer queryCountInspectorCustomizer() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR,
+                new QueryCountInspector(configuredInspector(properties.get(AvailableSettings.STATEMENT_INSPECTOR))));
+    }
+
+    private static StatementInspector configuredInspector(Object configured) {
+        if (configured == null || configured instanceof StatementInspector) {
+            return (StatementInspector) configured;
+        }
+        Class<?> type = configured instanceof Class<?> clazz
+                ? clazz
+                : ClassUtils.resolveClassName(configured.toString(), QueryCountConfig.class.getClassLoader());
+        return (StatementInspector) BeanUtils.instantiateClass(type);
+    }
+
+    /**
+     * 트랜잭션 바깥에서 감싸서 커밋할 때 flush로 나가는 SQL까지 포함
+     */
+    @Aspect
+    @Order(Ordered.LOWEST_PRECEDENCE - 1)
+    @RequiredArgsConstructor
+    static class TransactionalQueryCount {
+
+        private final QueryCountMetrics queryCountMetrics;
+
+        @Around("@within(org.springframework.transaction.annotation.Transactional)" +
+                " || @annotation(org.springframework.transaction.annotation.Transactional)")
+        public Object count(ProceedingJoinPoint joinPoint) throws Throwable {
+            String name = ClassUtils.getUserClass(joinPoint.getTarget()).getSimpleName() + "." + joinPoint.getSignature().getName();
+            QueryCounter.Scope scope = queryCountMetrics.open(name);
+            try {
+                return joinPoint.proceed();
+            } finally {
+                scope.close();
+                queryCountMetrics.report("method", name, scope);
+            }
+        }
+    }
+
+    @Bean
+    TransactionalQueryCount transactionalQueryCount(QueryCountMetrics queryCountMetrics) {
+        return new TransactionalQueryCount(queryCountMetrics);
+    }
+}
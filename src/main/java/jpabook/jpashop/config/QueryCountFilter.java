@@ -0,0 +1,115 @@
+package jpabook.jpashop.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * HTTP 요청마다 실행한 SQL 수
+ * - 응답 헤더 X-Query-Count (N+1 의심이 있으면 X-Query-N-Plus-One : 의심 쿼리 모양 수)
+ * - 메트릭 jpashop.sql.statements{scope=request, name=메서드 + 요청 패턴}
+ *
+ * 헤더는 응답 본문을 쓰기 시작할 때의 값 (헤더는 본문보다 먼저 나가야 하므로)
+ * => JSON 직렬화 중 지연로딩(엔티티 직접 반환)으로 나간 쿼리는 메트릭/로그에만 포함
+ */
+@Component
+@RequiredArgsConstructor
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    public static final String QUERY_COUNT_HEADER = "X-Query-Count";
+    public static final String N_PLUS_ONE_HEADER = "X-Query-N-Plus-One";
+
+    private final QueryCountMetrics queryCountMetrics;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        QueryCounter.Scope scope = queryCountMetrics.open(request.getMethod() + " " + request.getRequestURI());
+        HeaderWritingResponse countingResponse = new HeaderWritingResponse(response, scope);
+        try {
+            filterChain.doFilter(request, countingResponse);
+        } finally {
+            scope.close();
+            countingResponse.writeHeaders();
+            queryCountMetrics.report("request", name(request), scope);
+        }
+    }
+
+    /**
+     * 메트릭 name 태그는 URI 대신 매핑된 패턴 (/api/orders/tickets/{ticketId}) - 태그 값이 무한히 늘어나지 않도록
+     */
+    private static String name(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (pattern == null ? "UNKNOWN" : pattern);
+    }
+
+    /**
+     * 본문을 쓰기 직전(또는 redirect, 에러)에 그때까지의 SQL 수를 헤더로
+     */
+    private static final class HeaderWritingResponse extends HttpServletResponseWrapper {
+
+        private final QueryCounter.Scope scope;
+
+        HeaderWritingResponse(HttpServletResponse response, QueryCounter.Scope scope) {
+            super(response);
+            this.scope = scope;
+        }
+
+        void writeHeaders() {
+            if (isCommitted()) {
+                return;
+            }
+            setHeader(QUERY_COUNT_HEADER, String.valueOf(scope.getCount()));
+            int suspects = scope.getNPlusOneSuspects().size();
+            if (suspects > 0) {
+                setHeader(N_PLUS_ONE_HEADER, String.valueOf(suspects));
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeHeaders();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeHeaders();
+            return super.getWriter();
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            writeHeaders();
+            super.sendRedirect(location);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeHeaders();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeHeaders();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeaders();
+            super.flushBuffer();
+        }
+    }
+}
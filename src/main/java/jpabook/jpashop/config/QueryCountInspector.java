@@ -0,0 +1,25 @@
+package jpabook.jpashop.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate가 SQL을 실행하기 전에 호출 => QueryCounter에 기록
+ * 설정에 다른 statement_inspector가 있으면 그것을 먼저 거친 SQL을 기록 (QueryCountConfig 참고)
+ */
+public class QueryCountInspector implements StatementInspector {
+
+    private final StatementInspector delegate;
+
+    public QueryCountInspector(StatementInspector delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        String inspected = delegate == null ? sql : delegate.inspect(sql);
+        if (inspected != null) {
+            QueryCounter.record(inspected);
+        }
+        return inspected;
+    }
+}
@@ -0,0 +1,49 @@
+package jpabook.jpashop.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * 범위(요청, @Transactional 메서드)가 끝날 때 SQL 수를 기록
+ * - jpashop.sql.statements (scope=request|method, name=요청 패턴 또는 클래스.메서드) : 범위당 SQL 수 분포
+ * - jpashop.sql.n_plus_one (scope, name) : N+1 의심 쿼리 모양 수 + warn 로그
+ */
+@Slf4j
+@Component
+public class QueryCountMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final int nPlusOneThreshold;
+
+    public QueryCountMetrics(MeterRegistry meterRegistry,
+                             @Value("${jpashop.sql.n-plus-one-threshold:5}") int nPlusOneThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.nPlusOneThreshold = nPlusOneThreshold;
+    }
+
+    public QueryCounter.Scope open(String name) {
+        return QueryCounter.open(name, nPlusOneThreshold);
+    }
+
+    public void report(String scopeType, String name, QueryCounter.Scope scope) {
+        DistributionSummary.builder("jpashop.sql.statements")
+                .description("범위(요청, 서비스 메서드)당 실행한 SQL 수")
+                .tag("scope", scopeType)
+                .tag("name", name)
+                .register(meterRegistry)
+                .record(scope.getCount());
+
+        Map<String, Integer> suspects = scope.getNPlusOneSuspects();
+        if (!suspects.isEmpty()) {
+            meterRegistry.counter("jpashop.sql.n_plus_one", "scope", scopeType, "name", name)
+                    .increment(suspects.size());
+            suspects.forEach((sql, times) ->
+                    log.warn("N+1 suspect in {} {}: {} times: {}", scopeType, name, times, sql));
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package jpabook.jpashop.config;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * 실행된 SQL 수를 범위(scope)별로 셈 - HTTP 요청, @Transactional 메서드, 테스트 (QueryCountInspector가 SQL마다 호출)
+ * 범위는 스레드별로 쌓임 => 요청 안에서 서비스 메서드를 부르면 둘 다 카운트
+ * (다른 스레드에서 실행된 쿼리는 해당 스레드에 열린 범위에만 잡힘)
+ *
+ * N+1 의심 : 같은 모양(shape)의 select가 한 범위 안에서 threshold번 이상
+ * 모양 = 파라미터(?), 숫자 리터럴, IN 목록 길이를 무시한 SQL
+ */
+public final class QueryCounter {
+
+    private static final ThreadLocal<Deque<Scope>> SCOPES = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern NUMBER = Pattern.compile("\\b\\d+\\b");
+    private static final Pattern IN_LIST = Pattern.compile("in\\s*\\((\\s*\\?\\s*,?)+\\)", Pattern.CASE_INSENSITIVE);
+
+    private QueryCounter() {
+    }
+
+    public static Scope open(String name, int nPlusOneThreshold) {
+        Scope scope = new Scope(name, nPlusOneThreshold);
+        SCOPES.get().push(scope);
+        return scope;
+    }
+
+    static void record(String sql) {
+        Deque<Scope> scopes = SCOPES.get();
+        if (scopes.isEmpty()) {
+            return;
+        }
+        String shape = shape(sql);
+        boolean select = shape.regionMatches(true, 0, "select", 0, 6);
+        for (Scope scope : scopes) {
+            scope.record(shape, select);
+        }
+    }
+
+    static String shape(String sql) {
+        String shape = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+        shape = NUMBER.matcher(shape).replaceAll("?");
+        return IN_LIST.matcher(shape).replaceAll("in (?...)");
+    }
+
+    public static final class Scope implements AutoCloseable {
+
+        private final String name;
+        private final int nPlusOneThreshold;
+        private int count;
+        private final Map<String, Integer> selects = new LinkedHashMap<>();
+
+        private Scope(String name, int nPlusOneThreshold) {
+            this.name = name;
+            this.nPlusOneThreshold = nPlusOneThreshold;
+        }
+
+        private void record(String shape, boolean select) {
+            count++;
+            if (select) {
+                selects.merge(shape, 1, Integer::sum);
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * 지금까지 실행된 SQL 수
+         */
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * N+1 의심 쿼리 모양 -> 실행 횟수
+         */
+        public Map<String, Integer> getNPlusOneSuspects() {
+            return selects.entrySet().stream()
+                    .filter(entry -> entry.getValue() >= nPlusOneThreshold)
+                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+        }
+
+        @Override
+        public void close() {
+            Deque<Scope> scopes = SCOPES.get();
+            scopes.remove(this);
+            if (scopes.isEmpty()) {
+                SCOPES.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package jpabook.jpashop.config;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+
+import java.sql.SQLException;
+
+/**
+ * readOnly 트랜잭션에서는 2차 캐시를 읽기만 하고 채우지 않음 (CacheMode.GET)
+ * readOnly 조회는 replica로 가는데(ReadWriteRoutingDataSource), 지연된 replica에서 읽은 엔티티가 2차 캐시에 들어가면
+ * 쓰기 트랜잭션의 em.find도 그 이전 값을 받게 됨 => 버전 있는 Item은 낙관적 락 충돌, 버전 없는 Member는 이전 값으로 덮어씀
+ *
+ * 2차 캐시는 쓰기 트랜잭션과 트랜잭션 밖 조회(primary)만 채움
+ * OSIV로 요청 내내 같은 세션을 쓰니까 트랜잭션이 끝나면 원래 CacheMode로 되돌림
+ */
+public class ReadOnlyCacheModeJpaDialect extends HibernateJpaDialect {
+
+    @Override
+    public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+            throws PersistenceException, SQLException, TransactionException {
+        Object transactionData = super.beginTransaction(entityManager, definition);
+        if (!definition.isReadOnly()) {
+            return transactionData;
+        }
+        Session session = entityManager.unwrap(Session.class);
+        CacheMode previous = session.getCacheMode();
+        session.setCacheMode(CacheMode.GET);
+        return new ReadOnlyTransactionData(transactionData, session, previous);
+    }
+
+    @Override
+    public void cleanupTransaction(Object transactionData) {
+        if (transactionData instanceof ReadOnlyTransactionData readOnly) {
+            readOnly.session().setCacheMode(readOnly.previousCacheMode());
+            super.cleanupTransaction(readOnly.delegate());
+            return;
+        }
+        super.cleanupTransaction(transactionData);
+    }
+
+    private record ReadOnlyTransactionData(Object delegate, Session session, CacheMode previousCacheMode) {
+    }
+}
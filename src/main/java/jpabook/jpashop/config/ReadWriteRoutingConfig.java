@@ -0,0 +1,130 @@
+package jpabook.jpashop.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaVendorAdapter;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * 읽기/쓰기 DataSource 분리 (jpashop.datasource.replica.url을 설정했을 때만)
+ * - primaryDataSource : spring.datasource.* (Hikari pool=primary)
+ * - replicaDataSource : jpashop.datasource.replica.* (Hikari pool=replica, 읽기 전용)
+ * - dataSource(@Primary, JPA가 씀) : ReadWriteRoutingDataSource를 LazyConnectionDataSourceProxy로 감쌈
+ * 풀별 지표는 actuator가 Hikari 풀마다 hikaricp.connections.*{pool=primary|replica}로 등록
+ *
+ * 서비스는 클래스 레벨 @Transactional(readOnly = true), 쓰기 메서드만 @Transactional => 조회는 replica, 변경은 primary
+ * 방금 쓴 내용을 다른 readOnly 트랜잭션에서 바로 읽으면 replica 지연만큼 안 보일 수 있음 (max-lag 이내)
+ * => 읽은 값을 캐시에 넣거나(ItemService.findOne/findAll) 쓰기 전에 검증하는 조회(OrderIntakeQueue.submit)는 readOnly가 아닌 트랜잭션으로 primary에서
+ * readOnly 트랜잭션은 2차 캐시를 채우지 않음 (ReadOnlyCacheModeJpaDialect) => replica의 이전 값이 쓰기 트랜잭션의 em.find로 새지 않음
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "jpashop.datasource.replica", name = "url")
+public class ReadWriteRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("jpashop.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(@Value("${jpashop.datasource.replica.url}") String url,
+                                              @Value("${jpashop.datasource.replica.username:}") String username,
+                                              @Value("${jpashop.datasource.replica.password:}") String password) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("primaryDataSource") DataSource primary,
+                                               @Qualifier("replicaDataSource") DataSource replica,
+                                               MeterRegistry meterRegistry,
+                                               @Value("${jpashop.datasource.replica.max-lag:5s}") Duration maxLag) {
+        return new ReplicaLagMonitor(primary, replica, maxLag, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica,
+                                 ReplicaLagMonitor replicaLagMonitor,
+                                 MeterRegistry meterRegistry) {
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(primary, replica, replicaLagMonitor, meterRegistry);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    /**
+     * Hibernate 기본(DELAYED_ACQUISITION_AND_HOLD)은 OSIV로 열린 세션이 처음 가져온 커넥션을 요청 끝까지 들고 있음
+     * => 같은 요청에서 readOnly 다음 쓰기 트랜잭션이 replica 커넥션을 쓰게 됨. 트랜잭션마다 새로 가져오도록
+     */
+    @Bean
+    public HibernatePropertiesCustomizer releaseConnectionAfterTransaction() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    /**
+     * readOnly(replica) 트랜잭션은 2차 캐시를 채우지 않도록 (ReadOnlyCacheModeJpaDialect)
+     * 이 빈을 등록하면 Boot 기본 JpaVendorAdapter가 빠지니까 spring.jpa.* 설정은 여기서 그대로 옮겨줌
+     */
+    @Bean
+    public JpaVendorAdapter jpaVendorAdapter(JpaProperties properties) {
+        HibernateJpaDialect dialect = new ReadOnlyCacheModeJpaDialect();
+        HibernateJpaVendorAdapter adapter = new HibernateJpaVendorAdapter() {
+            @Override
+            public HibernateJpaDialect getJpaDialect() {
+                return dialect;
+            }
+        };
+        adapter.setShowSql(properties.isShowSql());
+        if (properties.getDatabase() != null) {
+            adapter.setDatabase(properties.getDatabase());
+        }
+        if (properties.getDatabasePlatform() != null) {
+            adapter.setDatabasePlatform(properties.getDatabasePlatform());
+        }
+        adapter.setGenerateDdl(properties.isGenerateDdl());
+        return adapter;
+    }
+
+    /**
+     * 로컬 H2 두개를 replica처럼 쓸 때 (실제 DB 복제 대신)
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "jpashop.datasource.replica", name = "h2-sync", havingValue = "true")
+    public H2ReplicaSync h2ReplicaSync(@Qualifier("primaryDataSource") DataSource primary,
+                                       @Qualifier("replicaDataSource") DataSource replica,
+                                       DataSourceProperties properties) {
+        return new H2ReplicaSync(primary, replica,
+                properties.determineUrl(), properties.determineUsername(), properties.determinePassword());
+    }
+}
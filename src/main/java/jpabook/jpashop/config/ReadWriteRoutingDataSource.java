@@ -0,0 +1,63 @@
+package jpabook.jpashop.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * readOnly 트랜잭션 => replica 풀, 나머지(쓰기 트랜잭션, 트랜잭션 밖) => primary 풀
+ * replica가 max-lag보다 뒤처졌거나 연결이 안되면(ReplicaLagMonitor) readOnly도 primary로
+ *
+ * 트랜잭션 시작 시점에는 readOnly 표시가 아직 안 되어 있어서 LazyConnectionDataSourceProxy로 감싸서 씀
+ * (실제 커넥션은 첫 SQL을 실행할 때 가져옴 => 그때 readOnly 여부로 결정)
+ *
+ * 커넥션을 어느 풀에서 가져왔는지 jpashop.datasource.route{pool=primary|replica, read_only}
+ * read_only=true, pool=primary 이면 replica 대신 primary로 보낸 것(fallback)
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+    static final String REPLICA = "replica";
+
+    private final ReplicaLagMonitor replicaLagMonitor;
+    private final Counter writes;
+    private final Counter reads;
+    private final Counter fallbacks;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica,
+                                      ReplicaLagMonitor replicaLagMonitor, MeterRegistry meterRegistry) {
+        this.replicaLagMonitor = replicaLagMonitor;
+        setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+
+        this.writes = route(meterRegistry, PRIMARY, false);
+        this.reads = route(meterRegistry, REPLICA, true);
+        this.fallbacks = route(meterRegistry, PRIMARY, true);
+    }
+
+    private static Counter route(MeterRegistry meterRegistry, String pool, boolean readOnly) {
+        return Counter.builder("jpashop.datasource.route")
+                .tag("pool", pool)
+                .tag("read_only", String.valueOf(readOnly))
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            writes.increment();
+            return PRIMARY;
+        }
+        if (!replicaLagMonitor.isAvailable()) {
+            fallbacks.increment();
+            return PRIMARY;
+        }
+        reads.increment();
+        return REPLICA;
+    }
+}
@@ -0,0 +1,92 @@
+package jpabook.jpashop.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * replica 지연 측정 (heartbeat)
+ * primary의 replica_heartbeat 테이블에 주기적으로 현재 시각을 쓰고, replica에서 읽어서 (지금 - 읽은 시각) = 지연
+ * 지연이 max-lag 이하일 때만 readOnly 트랜잭션을 replica로 (ReadWriteRoutingDataSource)
+ * 처음 측정하기 전, replica 조회 실패, max-lag 초과 => primary로
+ *
+ * 지표 : jpashop.datasource.replica.lag (초, 측정 실패면 NaN), jpashop.datasource.replica.available (1/0)
+ * heartbeat 테이블은 primary에 없으면 만듦 (replica에는 DB 복제로, 로컬 H2는 H2ReplicaSync로 전달됨)
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    private static final int HEARTBEAT_ID = 1;
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final Duration maxLag;
+
+    private volatile double lagSeconds = Double.NaN;
+    private volatile boolean available;
+
+    public ReplicaLagMonitor(DataSource primary, DataSource replica, Duration maxLag, MeterRegistry meterRegistry) {
+        this.primary = new JdbcTemplate(primary);
+        this.replica = new JdbcTemplate(replica);
+        this.maxLag = maxLag;
+
+        this.primary.execute("create table if not exists replica_heartbeat (id int primary key, beat_millis bigint not null)");
+
+        Gauge.builder("jpashop.datasource.replica.lag", this, monitor -> monitor.lagSeconds)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("jpashop.datasource.replica.available", this, monitor -> monitor.available ? 1 : 0)
+                .register(meterRegistry);
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    @Scheduled(fixedDelayString = "${jpashop.datasource.replica.heartbeat-interval:1s}")
+    public void heartbeat() {
+        try {
+            long now = System.currentTimeMillis();
+            if (primary.update("update replica_heartbeat set beat_millis = ? where id = ?", now, HEARTBEAT_ID) == 0) {
+                primary.update("insert into replica_heartbeat (id, beat_millis) values (?, ?)", HEARTBEAT_ID, now);
+            }
+        } catch (DataAccessException e) {
+            log.warn("replica heartbeat: write to primary failed: {}", e.getMessage());
+        }
+        check();
+    }
+
+    /**
+     * replica에 전달된 마지막 heartbeat로 지연 측정
+     */
+    public void check() {
+        boolean wasAvailable = available;
+        try {
+            List<Long> beats = replica.queryForList("select beat_millis from replica_heartbeat where id = ?", Long.class, HEARTBEAT_ID);
+            if (beats.isEmpty()) {
+                lagSeconds = Double.NaN;
+                available = false;
+            } else {
+                long lagMillis = Math.max(0, System.currentTimeMillis() - beats.get(0));
+                lagSeconds = lagMillis / 1000.0;
+                available = lagMillis <= maxLag.toMillis();
+            }
+        } catch (DataAccessException e) {
+            lagSeconds = Double.NaN;
+            available = false;
+            if (wasAvailable) {
+                log.warn("replica heartbeat: read from replica failed: {}", e.getMessage());
+            }
+        }
+        if (wasAvailable != available) {
+            log.info("replica {} (lag {} s, max {})", available ? "available" : "unavailable, reading from primary", lagSeconds, maxLag);
+        }
+    }
+}
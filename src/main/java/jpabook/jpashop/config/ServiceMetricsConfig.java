@@ -0,0 +1,45 @@
+package jpabook.jpashop.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+/**
+ * 서비스 메서드 지연시간/처리량/실패 (@Timed("jpashop.service"))
+ * - 타이머 jpashop.service{class, method, exception} : exception=none이면 성공, 아니면 예외 클래스 이름
+ *   (NotEnoughStockException, DuplicateMemberException, ObjectOptimisticLockingFailureException ...)
+ *   처리량 = count 증가율, 실패율 = exception!=none / 전체
+ * - 지연시간 히스토그램 버킷은 management.metrics.distribution 설정 (application.yml), p50/p99는 Prometheus histogram_quantile로
+ *
+ * micrometer TimedAspect를 그대로 쓰되 트랜잭션보다 바깥에서 감싸도록 순서를 지정 => 커밋(flush) 시간까지 포함
+ */
+@Configuration
+public class ServiceMetricsConfig {
+
+    @Aspect
+    @Order(Ordered.LOWEST_PRECEDENCE - 2)
+    static class ServiceTimer {
+
+        private final TimedAspect timedAspect;
+
+        ServiceTimer(MeterRegistry meterRegistry) {
+            this.timedAspect = new TimedAspect(meterRegistry);
+        }
+
+        @Around("execution(@io.micrometer.core.annotation.Timed * *(..))")
+        public Object timed(ProceedingJoinPoint joinPoint) throws Throwable {
+            return timedAspect.timedMethod(joinPoint);
+        }
+    }
+
+    @Bean
+    ServiceTimer serviceTimer(MeterRegistry meterRegistry) {
+        return new ServiceTimer(meterRegistry);
+    }
+}
@@ -0,0 +1,100 @@
+package jpabook.jpashop.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 가상 스레드 pinning 감지 (spring.threads.virtual.enabled=true 일 때만)
+ * 가상 스레드가 synchronized 블록 안에서(JDBC 드라이버 등) 대기하면 carrier 스레드에서 내려오지 못하고 같이 묶임(pinned)
+ * => carrier 수(= CPU 수)만큼 묶이면 다른 가상 스레드가 전부 멈춤
+ *
+ * JFR jdk.VirtualThreadPinned 이벤트를 애플리케이션 안에서 스트리밍으로 받아서
+ * - 로그 (warn) : 묶인 시간 + 스택
+ * - 메트릭 jpashop.virtual.pinned (site=synchronized를 잡고 있던 첫 애플리케이션/라이브러리 메서드) : 횟수, 시간
+ * pinned-threshold 보다 짧게 묶인 경우는 기록하지 않음 (JFR 기본값 20ms)
+ */
+@Slf4j
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadPinningMonitor {
+
+    private static final String EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 15;
+
+    private final MeterRegistry meterRegistry;
+    private final Duration threshold;
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry,
+                                       @Value("${jpashop.virtual.pinned-threshold:20ms}") Duration threshold) {
+        this.meterRegistry = meterRegistry;
+        this.threshold = threshold;
+    }
+
+    @PostConstruct
+    void start() {
+        stream = new RecordingStream();
+        stream.enable(EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(EVENT, this::report);
+        stream.startAsync();
+        log.info("virtual thread pinning monitor started: threshold={}", threshold);
+    }
+
+    @PreDestroy
+    void stop() {
+        stream.close();
+    }
+
+    private void report(RecordedEvent event) {
+        List<RecordedFrame> frames = frames(event.getStackTrace());
+        String site = site(frames);
+        Timer.builder("jpashop.virtual.pinned")
+                .description("가상 스레드가 carrier 스레드에 묶여 있던 시간")
+                .tag("site", site)
+                .register(meterRegistry)
+                .record(event.getDuration());
+
+        log.warn("virtual thread pinned {}ms at {} (thread={})\n{}",
+                event.getDuration().toMillis(), site,
+                event.getThread() == null ? "?" : event.getThread().getJavaName(),
+                frames.stream()
+                        .limit(LOGGED_FRAMES)
+                        .map(frame -> "\tat " + name(frame) + ":" + frame.getLineNumber())
+                        .collect(Collectors.joining("\n")));
+    }
+
+    private static List<RecordedFrame> frames(RecordedStackTrace stackTrace) {
+        return stackTrace == null ? List.of() : stackTrace.getFrames();
+    }
+
+    /**
+     * 스택 위쪽의 JDK 프레임(park, Continuation 등)을 건너뛴 첫 프레임 = 대기하게 만든 코드
+     */
+    private static String site(List<RecordedFrame> frames) {
+        return frames.stream()
+                .filter(RecordedFrame::isJavaFrame)
+                .map(VirtualThreadPinningMonitor::name)
+                .filter(name -> !name.startsWith("java.") && !name.startsWith("jdk.") && !name.startsWith("sun."))
+                .findFirst()
+                .orElse("unknown");
+    }
+
+    private static String name(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName();
+    }
+}
@@ -1,8 +1,8 @@
 package jpabook.jpashop.controller;
 
 import jpabook.jpashop.domain.item.Book;
-import jpabook.jpashop.domain.item.Item;
 import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.ItemSnapshot;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -40,7 +40,7 @@ public class ItemController {
 
     @GetMapping(value = "/items")
     public String list(Model model) {
-        List<Item> items = itemService.findAll();
+        List<ItemSnapshot> items = itemService.findAll();
         model.addAttribute("items", items);
         return "items/itemList";
     }
@@ -53,7 +53,7 @@ public class ItemController {
      */
     @GetMapping(value = "/items/{itemId}/edit")
     public String updateItemForm(@PathVariable("itemId") Long itemId, Model model) {
-        Book item = (Book) itemService.findOne(itemId);
+        ItemSnapshot item = itemService.findOne(itemId);
 
         BookForm form = new BookForm();
         form.setId(item.getId());
@@ -2,17 +2,23 @@ package jpabook.jpashop.controller;
 
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.domain.Order;
-import jpabook.jpashop.domain.item.Item;
 import jpabook.jpashop.repository.OrderSearch;
 import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.ItemSnapshot;
 import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderIntakeQueue;
 import jpabook.jpashop.service.OrderService;
+import jpabook.jpashop.service.OrderTicket;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
+import java.util.Map;
 
 @Controller
 @RequiredArgsConstructor
@@ -21,6 +27,11 @@ public class OrderController {
     private final OrderService orderService;
     private final MemberService memberService;
     private final ItemService itemService;
+    private final OrderIntakeQueue orderIntakeQueue;
+
+    // true면 주문을 큐에 접수만 하고 바로 응답 (OrderIntakeQueue가 모아서 저장)
+    @Value("${jpashop.order.intake.async:false}")
+    private boolean asyncIntake;
 
     /**
      * 주문하는 폼 생성하는 화면 띄우기
@@ -28,7 +39,7 @@ public class OrderController {
     @GetMapping(value = "/order")
     public String createForm(Model model) {
         List<Member> members = memberService.findMembers();
-        List<Item> items = itemService.findAll();
+        List<ItemSnapshot> items = itemService.findAll();
 
         model.addAttribute("members", members);
         model.addAttribute("items", items);
@@ -43,10 +54,27 @@ public class OrderController {
     public String order(@RequestParam("memberId") Long memberId,
                         @RequestParam("itemId") Long itemId,
                         @RequestParam("count") int count) {
+        if (asyncIntake) {
+            // 접수만 된 상태 => 저장/실패는 접수표 화면에서 확인
+            OrderTicket ticket = orderIntakeQueue.submit(memberId, Map.of(itemId, count));
+            return "redirect:/orders/tickets/" + ticket.getId();
+        }
         orderService.order(memberId, itemId, count);
         return "redirect:/";
     }
 
+    /**
+     * 비동기 주문 접수표 (QUEUED인 동안은 화면이 새로고침됨)
+     */
+    @GetMapping("/orders/tickets/{ticketId}")
+    public String orderTicket(@PathVariable("ticketId") String ticketId, Model model) {
+        OrderTicket ticket = orderIntakeQueue.findTicket(ticketId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "접수표가 없거나 만료되었습니다."));
+        model.addAttribute("ticket", ticket);
+
+        return "order/orderTicket";
+    }
+
     /**
      * 주문내역 출력
      */
@@ -1,20 +1,25 @@
 package jpabook.jpashop.domain;
 
 import jakarta.persistence.*;
+import jpabook.jpashop.domain.id.BlockSequence;
 import jpabook.jpashop.domain.item.Item;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "category")
 @Getter
 @Setter
 public class Category {
 
     @Id
-    @GeneratedValue
+    @BlockSequence("category_seq")
     @Column(name = "category_id")
     private Long id;
 
@@ -25,6 +30,7 @@ public class Category {
     @JoinTable(name = "category_item",
         joinColumns = @JoinColumn(name = "category_id"),
         inverseJoinColumns = @JoinColumn(name = "item_id"))
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "category.items")
     private List<Item> items = new ArrayList<>();
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -32,6 +38,7 @@ public class Category {
     private Category parent;
 
     @OneToMany(mappedBy = "parent")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "category.child")
     private List<Category> child = new ArrayList<>();
 
     /**
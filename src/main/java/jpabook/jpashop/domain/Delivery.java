@@ -2,6 +2,7 @@ package jpabook.jpashop.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import jpabook.jpashop.domain.id.BlockSequence;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -11,7 +12,7 @@ import lombok.Setter;
 public class Delivery {
 
     @Id
-    @GeneratedValue
+    @BlockSequence("delivery_seq")
     @Column(name = "delivery_id")
     private Long id;
 
@@ -2,19 +2,27 @@ package jpabook.jpashop.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import jpabook.jpashop.domain.id.BlockSequence;
 import jakarta.validation.constraints.NotEmpty;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+// 회원 이름 중복은 DB에서도 막음 (unique 인덱스 => 이름으로 찾는 중복 검사도 인덱스를 탐)
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_member_name", columnNames = "name"))
+// 2차 캐시 (주문할 때마다 같은 회원을 다시 조회하지 않도록)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "member")
 @Getter
 @Setter
 public class Member {
 
-    @Id @GeneratedValue
+    @Id @BlockSequence("member_seq")
     @Column(name = "member_id")
     private Long id;
 
@@ -0,0 +1,39 @@
+package jpabook.jpashop.domain;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 회원 이름 부분검색용 trigram (MemberNameIndex)
+ * 회원 이름을 3글자씩 자른 조각마다 한 row - 회원 저장/이름 변경과 같은 트랜잭션에서 씀
+ * 검색어의 조각으로 (gram, member_id) 인덱스만 읽어서 회원 id 후보를 찾음
+ */
+@Entity
+@Table(name = "member_name_trigram", indexes = @Index(name = "idx_member_name_trigram_gram", columnList = "gram, member_id"))
+@IdClass(MemberNameTrigram.Key.class)
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor
+public class MemberNameTrigram {
+
+    @Id
+    @Column(name = "member_id")
+    private Long memberId;
+
+    @Id
+    private String gram;
+
+    @EqualsAndHashCode
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long memberId;
+        private String gram;
+    }
+}
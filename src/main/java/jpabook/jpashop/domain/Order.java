@@ -1,6 +1,7 @@
 package jpabook.jpashop.domain;
 
 import jakarta.persistence.*;
+import jpabook.jpashop.domain.id.BlockSequence;
 import lombok.Getter;
 import lombok.Setter;
 import org.hibernate.proxy.pojo.bytebuddy.ByteBuddyInterceptor;
@@ -10,12 +11,18 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+// 주문 검색(OrderRepository.findAllByCriteria)의 조건/정렬이 모두 인덱스를 타도록 선언
+// 주문상태 검색 => (status, order_date) / 회원 검색 => (member_id, order_date) / 주문일 범위, 주문일 정렬 => (order_date)
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_status_order_date", columnList = "status, order_date"),
+        @Index(name = "idx_orders_member_order_date", columnList = "member_id, order_date"),
+        @Index(name = "idx_orders_order_date", columnList = "order_date")
+})
 @Getter
 @Setter
 public class Order {
 
-    @Id @GeneratedValue
+    @Id @BlockSequence("orders_seq")
     @Column(name = "order_id")
     private Long id;
 
@@ -39,6 +46,10 @@ public class Order {
     @Enumerated(EnumType.STRING)
     private OrderStatus status;
 
+    // 낙관적 락 - 같은 주문을 동시에 취소하는 경우 등
+    @Version
+    private Long version;
+
     /**
      * 양방향 연관관계 편의 메서드
      */
@@ -79,17 +90,24 @@ public class Order {
      * 주문 취소 메서드
      */
     public void cancel() {
+        markCanceled();
+
+        // 재고 원복
+        for (OrderItem orderItem : orderItems) {
+            orderItem.cancel();
+        }
+    }
+
+    /**
+     * 주문 상태만 취소로 변경 (재고 원복은 호출하는 쪽에서 따로 처리 - 재고 예약 모드)
+     */
+    public void markCanceled() {
         // 이미 배송이 완료되어서 취소가 불가능 IllegalStateException("")
         if (delivery.getStatus() == DeliveryStatus.COMP) {
             throw new IllegalStateException("이미 배송이 완료된 상품입니다.");
         }
         // set status 변경
         this.setStatus(OrderStatus.CANCEL);
-
-        // 재고 원복
-        for (OrderItem orderItem : orderItems) {
-            orderItem.cancel();
-        }
     }
 
     /**
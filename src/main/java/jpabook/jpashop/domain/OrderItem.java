@@ -2,6 +2,7 @@ package jpabook.jpashop.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import jpabook.jpashop.domain.id.BlockSequence;
 import jpabook.jpashop.domain.item.Item;
 import lombok.AccessLevel;
 import lombok.Getter;
@@ -9,13 +10,19 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Entity
+// 상품으로 주문 검색 => (item_id, order_id)
+// 재고 예약 모드에서 반영 안된 재고 찾기 => (stock_pending)
+@Table(indexes = {
+        @Index(name = "idx_order_item_item_order", columnList = "item_id, order_id"),
+        @Index(name = "idx_order_item_stock_pending", columnList = "stock_pending")
+})
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class OrderItem {
 
     @Id
-    @GeneratedValue
+    @BlockSequence("order_item_seq")
     @Column(name = "order_item_id")
     private Long id;
 
@@ -34,6 +41,10 @@ public class OrderItem {
     // 주문 수량
     private int count;
 
+    // 재고 예약 모드(StockReservationEngine)에서 아직 item 테이블에 반영 안된 재고 변화량
+    // 주문 => -수량, 취소 => +수량 / 반영되면 null
+    private Integer stockPending;
+
     /**
      * 주문했을 때 메서드
      */
@@ -47,6 +58,32 @@ public class OrderItem {
         return orderItem;
     }
 
+    /**
+     * 재고를 조건부 update로 이미 차감한 경우 (StockMode.ATOMIC) 주문했을 때 메서드
+     * Item은 select 없이 참조(프록시)만 걸어둠
+     */
+    public static OrderItem createStockAppliedOrderItem(Item item, int orderPrice, int count) {
+        OrderItem orderItem = new OrderItem();
+        orderItem.setItem(item);
+        orderItem.setOrderPrice(orderPrice);
+        orderItem.setCount(count);
+        return orderItem;
+    }
+
+    /**
+     * 재고 예약 모드에서 주문했을 때 메서드
+     * 재고는 StockReservationEngine에서 미리 예약했으니 Item은 건드리지 않고
+     * item 테이블에 반영할 변화량만 기록 (주문과 같은 트랜잭션에 저장되니까 서버가 죽어도 안 잃어버림)
+     */
+    public static OrderItem createReservedOrderItem(Item item, int orderPrice, int count) {
+        OrderItem orderItem = new OrderItem();
+        orderItem.setItem(item);
+        orderItem.setOrderPrice(orderPrice);
+        orderItem.setCount(count);
+        orderItem.setStockPending(-count);
+        return orderItem;
+    }
+
     /**
      * Order에서 주문 취소할 때 OrderItem도 재고 조정
      */
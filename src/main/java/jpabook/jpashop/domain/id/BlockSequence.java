@@ -0,0 +1,23 @@
+package jpabook.jpashop.domain.id;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 엔티티별 시퀀스 + 메모리 블록 할당 (pooled-lo)
+ * 시퀀스 한번 호출로 jpashop.id.allocation-size 개의 id를 받아와서 메모리에서 나눠줌
+ * ex) @Id @BlockSequence("member_seq")
+ */
+@IdGeneratorType(BlockSequenceGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface BlockSequence {
+
+    // 시퀀스 이름
+    String value();
+
+}
@@ -0,0 +1,60 @@
+package jpabook.jpashop.domain.id;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * id 블록 할당 (락 없음)
+ * - 지금 블록에서 getAndIncrement로 하나씩 꺼냄
+ * - 블록이 다 떨어지면 꺼내려던 스레드가 새 블록(시작값)을 받아와서 CAS로 교체
+ * - 동시에 여러 스레드가 새 블록을 받아왔으면 교체에 실패한 블록은 버리지 않고 예비로 두었다가 다음에 사용
+ */
+public class IdBlockAllocator {
+
+    private static final Block EXHAUSTED = new Block(0, 0);
+
+    private final int blockSize;
+    private final AtomicReference<Block> current = new AtomicReference<>(EXHAUSTED);
+    private final Queue<Block> spares = new ConcurrentLinkedQueue<>();
+
+    public IdBlockAllocator(int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("blockSize는 1 이상이어야 합니다. blockSize=" + blockSize);
+        }
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * @param nextBlockStart 새 블록의 시작값 (시퀀스 호출)
+     */
+    public long next(LongSupplier nextBlockStart) {
+        while (true) {
+            Block block = current.get();
+            long id = block.cursor.getAndIncrement();
+            if (id < block.limit) {
+                return id;
+            }
+
+            Block replacement = spares.poll();
+            if (replacement == null) {
+                replacement = new Block(nextBlockStart.getAsLong(), blockSize);
+            }
+            if (!current.compareAndSet(block, replacement)) {
+                spares.offer(replacement);
+            }
+        }
+    }
+
+    private static final class Block {
+        private final AtomicLong cursor;
+        private final long limit;
+
+        private Block(long start, int size) {
+            this.cursor = new AtomicLong(start);
+            this.limit = start + size;
+        }
+    }
+}
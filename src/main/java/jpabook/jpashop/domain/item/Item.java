@@ -1,10 +1,13 @@
 package jpabook.jpashop.domain.item;
 
 import jakarta.persistence.*;
+import jpabook.jpashop.domain.id.BlockSequence;
 import jpabook.jpashop.domain.Category;
 import jpabook.jpashop.exception.NotEnoughStockException;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -13,12 +16,15 @@ import java.util.List;
 // SINGLE_TABLE : Item은 Album, Movie, Book과 상속관계가 있지만, Single_Table을 해줌으로 하나의 Item 테이블에 다 넣어줌
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
 @DiscriminatorColumn(name = "dtype")
+// 2차 캐시 - 상속관계에서는 부모(Item)에만 선언 => Book, Album, Movie 모두 같은 region 사용
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "item")
 @Getter
 @Setter
 public abstract class Item {
 
     @Id
-    @GeneratedValue
+    @BlockSequence("item_seq")
     @Column(name = "item_id")
     private Long id;
 
@@ -28,7 +34,12 @@ public abstract class Item {
 
     private int stockQuantity;
 
+    // 낙관적 락 - 동시에 재고를 바꾸면 나중에 커밋하는 쪽이 실패 (OrderService에서 재시도)
+    @Version
+    private Long version;
+
     @ManyToMany(mappedBy = "items")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "item.categories")
     private List<Category> categories = new ArrayList<>();
 
 
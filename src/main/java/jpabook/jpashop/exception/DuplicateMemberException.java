@@ -0,0 +1,16 @@
+package jpabook.jpashop.exception;
+
+/**
+ * 같은 이름의 회원이 이미 있음
+ * 기존 코드가 IllegalStateException으로 잡고 있어서 그 하위 타입
+ */
+public class DuplicateMemberException extends IllegalStateException {
+
+    public DuplicateMemberException(String message) {
+        super(message);
+    }
+
+    public DuplicateMemberException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,16 @@
+package jpabook.jpashop.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 비동기 주문 접수 큐가 가득 참 => 잠시 후 다시 요청 (503)
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class OrderQueueFullException extends RuntimeException {
+
+    public OrderQueueFullException(String message) {
+        super(message);
+    }
+
+}
@@ -1,17 +1,29 @@
 package jpabook.jpashop.repository;
 
+import jakarta.persistence.Cache;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
 import jakarta.persistence.PersistenceContext;
 import jpabook.jpashop.domain.item.Item;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.hibernate.query.NativeQuery;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Repository
 @RequiredArgsConstructor
 public class ItemRepository {
 
+    // 재고 native update의 query space - 어떤 엔티티 테이블과도 겹치지 않음 (updateStock 참고)
+    private static final String STOCK_QUERY_SPACE = "item_stock";
+
     @PersistenceContext
     private EntityManager em;
 
@@ -32,6 +44,160 @@ public class ItemRepository {
         return em.createQuery("select i from Item i", Item.class)
                 .getResultList();
     }
+
+    /**
+     * 여러 상품을 IN 쿼리 한번으로 (id 오름차순)
+     */
+    public List<Item> findAllById(Collection<Long> ids) {
+        return em.createQuery("select i from Item i where i.id in :ids order by i.id", Item.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
+    /**
+     * select 없이 참조(프록시)만 - 이미 영속성 컨텍스트에 있으면 그 엔티티
+     */
+    public Item getReference(Long id) {
+        return em.getReference(Item.class, id);
+    }
+
+    //== 조건부 update로 재고 변경 (StockMode.ATOMIC) ==//
+
+    /**
+     * 가격만 조회 (엔티티를 만들지 않음)
+     */
+    public Integer findPrice(Long itemId) {
+        return em.createQuery("select i.price from Item i where i.id = :itemId", Integer.class)
+                .setParameter("itemId", itemId)
+                .getResultStream()
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * 여러 상품 가격을 IN 쿼리 한번으로 (상품 id -> 가격)
+     */
+    public Map<Long, Integer> findPrices(Collection<Long> ids) {
+        return em.createQuery("select i.id, i.price from Item i where i.id in :ids", Object[].class)
+                .setParameter("ids", ids)
+                .getResultStream()
+                .collect(Collectors.toMap(row -> (Long) row[0], row -> (Integer) row[1]));
+    }
+
+    /**
+     * 재고가 충분할 때만 차감 (읽고-계산하고-쓰기 대신 update 한번 => 동시에 주문해도 재고가 음수가 되거나 덮어써지지 않음)
+     * @return 차감됐으면 true, 재고가 부족하면(또는 상품이 없으면) false
+     */
+    public boolean decreaseStock(Long itemId, int count) {
+        int updated = updateStock("update item set stock_quantity = stock_quantity - :count, version = version + 1" +
+                " where item_id = :itemId and stock_quantity >= :count", itemId, count);
+        refreshIfLoaded(itemId);
+        return updated == 1;
+    }
+
+    public void increaseStock(Long itemId, int count) {
+        updateStock("update item set stock_quantity = stock_quantity + :count, version = version + 1" +
+                " where item_id = :itemId", itemId, count);
+        refreshIfLoaded(itemId);
+    }
+
+    /**
+     * 재고 update는 native query로 (HQL update versioned Item과 같은 일 - 버전도 같이 올림)
+     * HQL bulk update나 영향받는 테이블(query space)을 선언 안한 native update는 커밋 후에 2차 캐시 item region 전체를 비움
+     * => 주문마다 상품 캐시가 통째로 날아가서 주문이 몰리면 캐시가 데워질 틈이 없음
+     * 엔티티가 매핑되지 않은 query space(STOCK_QUERY_SPACE)를 선언해서 Hibernate가 region을 비우지 않게 하고,
+     * 바뀐 상품 하나(Item#id)만 직접 무효화 (지금 한번 + 커밋 후 한번 - 그 사이에 다른 트랜잭션이 이전 값을 다시 넣었을 수 있음)
+     */
+    private int updateStock(String sql, Long itemId, int count) {
+        int updated = em.createNativeQuery(sql)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace(STOCK_QUERY_SPACE)
+                .setParameter("count", count)
+                .setParameter("itemId", itemId)
+                .executeUpdate();
+        evictAfterCommit(itemId);
+        return updated;
+    }
+
+    private void evictAfterCommit(Long itemId) {
+        Cache cache = em.getEntityManagerFactory().getCache();
+        cache.evict(Item.class, itemId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.evict(Item.class, itemId);
+                }
+            });
+        }
+    }
+
+    /**
+     * bulk update는 영속성 컨텍스트를 거치지 않으니까 이미 읽어둔 Item이 있으면 DB 값으로 다시 맞춰줌
+     */
+    private void refreshIfLoaded(Long itemId) {
+        Item item = em.getReference(Item.class, itemId);
+        if (Hibernate.isInitialized(item)) {
+            em.refresh(item);
+        }
+    }
+
+    //== 재고 예약 모드 (StockReservationEngine) ==//
+
+    /**
+     * 지금 주문 가능한 재고 = item 테이블 재고 + 아직 반영 안된 변화량 합계
+     */
+    public Integer findAvailableStock(Long itemId) {
+        return em.createQuery(
+                        "select i.stockQuantity + coalesce((select sum(oi.stockPending) from OrderItem oi" +
+                                " where oi.item.id = i.id and oi.stockPending is not null), 0)" +
+                                " from Item i where i.id = :itemId", Long.class)
+                .setParameter("itemId", itemId)
+                .getResultStream()
+                .findFirst()
+                .map(Long::intValue)
+                .orElse(null);
+    }
+
+    /**
+     * 아직 item 테이블에 반영 안된 주문상품 (id, item id, 변화량)
+     * 반영하는 동안 취소가 끼어들지 않도록 row lock (select ... for update)
+     */
+    public List<Object[]> findPendingStockForUpdate(int limit) {
+        return em.createQuery(
+                        "select oi.id, oi.item.id, oi.stockPending from OrderItem oi" +
+                                " where oi.stockPending is not null" +
+                                " order by oi.id", Object[].class)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * 재고 변화량을 item 테이블에 반영 (엔티티를 읽지 않고 update 한번, 2차 캐시는 이 상품만 무효화 - updateStock 참고)
+     * 버전도 같이 올려서, 그 사이에 상품을 읽어간 트랜잭션(관리자 수정 등)이 덮어쓰지 못하게 함
+     */
+    public void applyStockDelta(Long itemId, int delta) {
+        updateStock("update item set stock_quantity = stock_quantity + :count, version = version + 1" +
+                " where item_id = :itemId", itemId, delta);
+    }
+
+    public void clearPendingStock(List<Long> orderItemIds) {
+        em.createQuery("update OrderItem oi set oi.stockPending = null where oi.id in :orderItemIds")
+                .setParameter("orderItemIds", orderItemIds)
+                .executeUpdate();
+    }
+
+    /**
+     * 주문 취소시 재고 변화량 기록 (반영 전이면 주문한 -수량과 상쇄됨)
+     * 다른 트랜잭션이 같이 바꿀 수 있으니 읽고 쓰지 않고 update 한번으로 더함
+     */
+    public void addPendingStock(Long orderItemId, int delta) {
+        em.createQuery("update OrderItem oi set oi.stockPending = coalesce(oi.stockPending, 0) + :delta where oi.id = :orderItemId")
+                .setParameter("delta", delta)
+                .setParameter("orderItemId", orderItemId)
+                .executeUpdate();
+    }
 }
 
 
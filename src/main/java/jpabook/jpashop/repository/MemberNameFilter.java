@@ -0,0 +1,166 @@
+package jpabook.jpashop.repository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 회원 이름 중복 검사용 Bloom filter
+ * "없다"고 하면 확실히 없는 이름 => 가입할 때 이름 조회 쿼리를 건너뜀
+ * "있을 수도 있다"고 하면 DB에서 확인 (오탐 가능, 놓치는 경우는 없음)
+ *
+ * - 시작할 때 DB의 회원 이름으로 채우고, 가입/이름 변경/가져오기 때마다 추가 (삭제는 못함 => 바뀌기 전 이름은 오탐으로 남음)
+ * - 롤백된 가입의 이름이 들어가도 오탐이 하나 늘 뿐이라 커밋을 기다리지 않고 바로 추가
+ * - 최종 판단은 DB unique 인덱스(uk_member_name) - 동시에 같은 이름으로 가입하는 경우
+ * - 크기는 expected-insertions 기준이라 회원이 그보다 많아지면 오탐률이 올라감 => 메트릭 보고 설정 조정
+ *
+ * 메트릭
+ * - jpashop.member.name.filter.checks (result=miss|maybe) : 검사 횟수
+ * - jpashop.member.name.filter.false.positives : maybe였는데 DB에 없던 횟수
+ * - jpashop.member.name.filter.false.positive.rate : 실제로 없던 이름 중 maybe가 나온 비율
+ * - jpashop.member.name.filter.expected.false.positive.rate : 지금 채워진 비트 기준 이론상 오탐률
+ */
+@Slf4j
+@Component
+public class MemberNameFilter {
+
+    private final MemberRepository memberRepository;
+
+    private final long bitSize;
+    private final int hashCount;
+    private final AtomicLongArray bits;
+    private final AtomicLong bitsSet = new AtomicLong();
+
+    private final Counter misses;
+    private final Counter maybes;
+    private final Counter falsePositives;
+
+    private volatile boolean ready = false;
+
+    public MemberNameFilter(MemberRepository memberRepository,
+                            MeterRegistry meterRegistry,
+                            @Value("${jpashop.member.name-filter.expected-insertions:1000000}") long expectedInsertions,
+                            @Value("${jpashop.member.name-filter.false-positive-probability:0.01}") double falsePositiveProbability) {
+        this.memberRepository = memberRepository;
+
+        // m = -n ln(p) / (ln 2)^2, k = m/n ln 2
+        long m = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+        this.bitSize = Math.max(64, (m + 63) / 64 * 64);
+        this.hashCount = Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * Math.log(2)));
+        this.bits = new AtomicLongArray((int) (bitSize / 64));
+
+        this.misses = meterRegistry.counter("jpashop.member.name.filter.checks", "result", "miss");
+        this.maybes = meterRegistry.counter("jpashop.member.name.filter.checks", "result", "maybe");
+        this.falsePositives = meterRegistry.counter("jpashop.member.name.filter.false.positives");
+        Gauge.builder("jpashop.member.name.filter.false.positive.rate", this, MemberNameFilter::falsePositiveRate)
+                .register(meterRegistry);
+        Gauge.builder("jpashop.member.name.filter.expected.false.positive.rate", this, MemberNameFilter::expectedFalsePositiveRate)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 애플리케이션 시작시 DB의 회원 이름으로 채움 (그 전에는 항상 DB에서 확인)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<String> names = memberRepository.findAllNames();
+        names.forEach(this::put);
+        ready = true;
+        log.info("member name filter loaded: {} names, {} bits, {} hashes", names.size(), bitSize, hashCount);
+    }
+
+    public void put(String name) {
+        long[] hashes = hash(name);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = index(hashes, i);
+            long mask = 1L << (bit & 63);
+            long before = bits.getAndAccumulate((int) (bit >>> 6), mask, (current, m) -> current | m);
+            if ((before & mask) == 0) {
+                bitsSet.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 필터 검사 결과
+     * - ABSENT : 확실히 없는 이름
+     * - MAYBE : 있을 수도 있음 (DB 확인, 없으면 오탐 => recordFalsePositive)
+     * - NOT_LOADED : 아직 적재 전이라 판단 못함 (DB 확인, 오탐으로 세지 않음)
+     */
+    public enum Check {
+        ABSENT, MAYBE, NOT_LOADED
+    }
+
+    public Check check(String name) {
+        if (!ready) {
+            return Check.NOT_LOADED;
+        }
+        long[] hashes = hash(name);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = index(hashes, i);
+            if ((bits.get((int) (bit >>> 6)) & (1L << (bit & 63))) == 0) {
+                misses.increment();
+                return Check.ABSENT;
+            }
+        }
+        maybes.increment();
+        return Check.MAYBE;
+    }
+
+    /**
+     * @return false면 확실히 없는 이름, true면 DB 확인 필요
+     */
+    public boolean mightContain(String name) {
+        return check(name) != Check.ABSENT;
+    }
+
+    /**
+     * check가 MAYBE였는데 DB에 없었던 경우 (오탐) 기록 - NOT_LOADED일 때는 호출하지 않음
+     */
+    public void recordFalsePositive() {
+        falsePositives.increment();
+    }
+
+    private double falsePositiveRate() {
+        double negatives = misses.count() + falsePositives.count();
+        return negatives == 0 ? 0 : falsePositives.count() / negatives;
+    }
+
+    private double expectedFalsePositiveRate() {
+        return Math.pow((double) bitsSet.get() / bitSize, hashCount);
+    }
+
+    // double hashing : i번째 해시 = h1 + i * h2
+    private long index(long[] hashes, int i) {
+        return Math.floorMod(hashes[0] + i * hashes[1], bitSize);
+    }
+
+    private static long[] hash(String name) {
+        // FNV-1a 64bit 후 섞어서 두 개의 해시로
+        long h = 0xcbf29ce484222325L;
+        for (byte b : name.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        return new long[]{mix(h), mix(h ^ 0x9E3779B97F4A7C15L) | 1};
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb93fe1a85ec3L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
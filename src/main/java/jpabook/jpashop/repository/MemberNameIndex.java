@@ -0,0 +1,181 @@
+package jpabook.jpashop.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.AbstractQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.MemberNameTrigram;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 회원 이름 부분검색용 trigram 인덱스 (member_name_trigram 테이블, MemberNameTrigram)
+ * like '%name%'는 앞에 %가 붙어서 DB 인덱스를 못 타고 member 테이블을 전부 읽음
+ * => 이름 뒤에 PAD를 붙여서 3글자씩 잘라(trigram) (gram, member_id)로 저장해두고
+ *    - 3글자 이상 검색어 : 검색어의 trigram을 모두 가진 회원
+ *    - 1~2글자 검색어 : 검색어로 시작하는 조각이 있는 회원 (PAD 덕분에 이름 끝 글자도 어떤 조각의 앞부분이 됨, gram like 'ab%' => 인덱스 범위 검색)
+ *    으로 좁힌 뒤 실제 이름에 검색어가 들어있는지 한번 더 확인 (회원은 PK로만 읽음)
+ * 검색어 길이, 일치하는 회원 수와 상관없이 member 테이블을 전부 읽지 않음
+ *
+ * 회원 저장/이름 변경과 같은 트랜잭션에서 씀 => 커밋된 회원은 어느 인스턴스에서 저장했든 검색됨
+ * JPA를 거치지 않고 넣은 회원(SQL로 직접 insert 등)은 시작할 때 indexMissing()이 채움
+ * (SQL로 직접 바꾼 이름은 알 수 없으니 put()을 호출해야 함)
+ */
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class MemberNameIndex {
+
+    private static final int GRAM = 3;
+    // 이름 뒤에 붙이는 채움 문자 (GRAM - 1개) - 검색 결과는 실제 이름으로 다시 확인하니까 이름에 공백이 있어도 상관없음
+    private static final String PAD = " ".repeat(GRAM - 1);
+    // indexMissing()에서 한 트랜잭션에 처리할 회원 수
+    private static final int BATCH_SIZE = 1000;
+    // indexMissing()에서 같은 batch가 연속으로 충돌할 때 다시 시도하는 최대 횟수
+    private static final int MAX_CONFLICT_RETRIES = 3;
+
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * 새 회원 이름 추가 (회원을 persist한 뒤, 같은 트랜잭션에서)
+     */
+    public void add(Long memberId, String name) {
+        for (String gram : trigrams(name + PAD)) {
+            em.persist(new MemberNameTrigram(memberId, gram));
+        }
+    }
+
+    /**
+     * 회원 이름 변경 - 이전 이름의 trigram은 지우고 다시 추가
+     */
+    public void put(Long memberId, String name) {
+        em.createQuery("delete from MemberNameTrigram t where t.memberId = :memberId")
+                .setParameter("memberId", memberId)
+                .executeUpdate();
+        if (name != null) {
+            add(memberId, name);
+        }
+    }
+
+    /**
+     * 이름에 keyword가 포함된 회원 id
+     */
+    public Set<Long> findIds(String keyword) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        query.select(restrictToMatches(cb, query, keyword));
+        return new HashSet<>(em.createQuery(query).getResultList());
+    }
+
+    /**
+     * 이름에 keyword가 포함된 회원 id 서브쿼리 (주문 검색 등에서 member.id in (...) 조건으로)
+     * 회원 id를 먼저 읽어오지 않으니 일치하는 회원이 많아도 IN 목록이 커지지 않음
+     */
+    public Subquery<Long> idsSubquery(CriteriaBuilder cb, AbstractQuery<?> query, String keyword) {
+        Subquery<Long> ids = query.subquery(Long.class);
+        return ids.select(restrictToMatches(cb, ids, keyword));
+    }
+
+    /**
+     * trigram 조각으로 후보를 좁히고 실제 이름으로 확인 (조각이 다 있어도 연속으로 붙어있지 않을 수 있으니)
+     * (locate : 검색어의 %, _ 를 like 패턴으로 해석하지 않음)
+     * @return 회원 id (select에 넘김)
+     */
+    private Path<Long> restrictToMatches(CriteriaBuilder cb, AbstractQuery<Long> query, String keyword) {
+        Root<MemberNameTrigram> t = query.from(MemberNameTrigram.class);
+        Root<Member> m = query.from(Member.class);
+        Path<Long> memberId = t.get("memberId");
+
+        Set<String> grams = trigrams(keyword);
+        Predicate gramMatch = grams.isEmpty()
+                ? cb.like(t.get("gram"), escapeLike(keyword) + "%", '\\')
+                : t.get("gram").in(grams);
+        query.where(gramMatch,
+                        cb.equal(m.get("id"), memberId),
+                        cb.greaterThan(cb.locate(m.get("name"), keyword), 0))
+                .groupBy(memberId);
+        if (!grams.isEmpty()) {
+            query.having(cb.equal(cb.count(t.get("gram")), (long) grams.size()));
+        }
+        return memberId;
+    }
+
+    private static String escapeLike(String keyword) {
+        return keyword.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /**
+     * trigram이 없는 회원(JPA를 거치지 않고 저장된 회원)을 찾아서 채움 - 애플리케이션 시작시(InitDb 데이터 저장 이후)
+     * @return 채운 회원 수
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public int indexMissing() {
+        int total = 0;
+        int indexed;
+        int conflicts = 0;
+        do {
+            try {
+                indexed = transactionTemplate.execute(status -> indexMissingBatch());
+            } catch (DataIntegrityViolationException e) {
+                // 그 사이에 같은 회원을 다른 트랜잭션이 먼저 채움 (InitDb 지연 시딩 등) => 다시 조회해서 나머지만
+                // 계속 실패하면 동시 저장이 아니라 데이터 문제 => 무한 반복하지 않고 실패
+                if (++conflicts > MAX_CONFLICT_RETRIES) {
+                    log.error("member name index: batch kept failing after {} retries", MAX_CONFLICT_RETRIES, e);
+                    throw e;
+                }
+                log.debug("member name index: concurrent insert, retrying batch", e);
+                indexed = BATCH_SIZE;
+                continue;
+            }
+            conflicts = 0;
+            total += indexed;
+        } while (indexed == BATCH_SIZE);
+
+        if (total > 0) {
+            log.info("member name index: indexed {} members", total);
+        }
+        return total;
+    }
+
+    private int indexMissingBatch() {
+        // 채운 회원은 항상 마지막 조각(끝 글자 + PAD)이 있음 => 없으면 아직 안 채웠거나 PAD 없이 채운 회원 (put으로 다시)
+        List<Object[]> rows = em.createQuery(
+                        "select m.id, m.name from Member m" +
+                                " where length(m.name) > 0" +
+                                " and not exists (select 1 from MemberNameTrigram t where t.memberId = m.id" +
+                                " and t.gram = concat(substring(m.name, length(m.name), 1), :pad))" +
+                                " order by m.id", Object[].class)
+                .setParameter("pad", PAD)
+                .setMaxResults(BATCH_SIZE)
+                .getResultList();
+        for (Object[] row : rows) {
+            put((Long) row[0], (String) row[1]);
+        }
+        em.flush();
+        em.clear();
+        return rows.size();
+    }
+
+    private static Set<String> trigrams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+}
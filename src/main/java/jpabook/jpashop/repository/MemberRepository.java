@@ -6,6 +6,7 @@ import jakarta.persistence.TypedQuery;
 import jpabook.jpashop.domain.Member;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -22,10 +23,23 @@ public class MemberRepository {
         System.out.println("✅✅✅✅✅✅✅✅✅✅✅✅✅✅ 저장 완료: " + member.getName());
     }
 
+    /**
+     * 지금까지 쌓인 insert/update를 DB에 반영 - unique 제약조건 위반을 바로 확인할 때
+     */
+    public void flush() {
+        em.flush();
+    }
+
     public Member findOne(Long id) {
         return em.find(Member.class, id);
     }
 
+    public List<Member> findAllById(Collection<Long> ids) {
+        return em.createQuery("select m from Member m where m.id in :ids", Member.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
     public List<Member> findAll() {
         return em.createQuery("select m from Member m", Member.class).getResultList();
     }
@@ -36,4 +50,20 @@ public class MemberRepository {
                 .getResultList();
     }
 
+    /**
+     * 이미 있는 이름만 골라서 조회 (대량 가져오기 중복 검사용 - 이름 하나씩 조회하지 않고 IN 한번)
+     */
+    public List<String> findExistingNames(Collection<String> names) {
+        return em.createQuery("select m.name from Member m where m.name in :names", String.class)
+                .setParameter("names", names)
+                .getResultList();
+    }
+
+    /**
+     * 회원 이름 Bloom filter(MemberNameFilter) 적재용 - 이름만 조회
+     */
+    public List<String> findAllNames() {
+        return em.createQuery("select m.name from Member m", String.class)
+                .getResultList();
+    }
 }
@@ -5,6 +5,7 @@ import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.*;
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
 import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryDto;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
@@ -12,12 +13,14 @@ import org.springframework.util.StringUtils;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Repository
 @RequiredArgsConstructor
 public class OrderRepository {
 
     private final EntityManager em;
+    private final MemberNameIndex memberNameIndex;
 
     public void save(Order order) {
         em.persist(order);
@@ -45,12 +48,39 @@ public class OrderRepository {
         }
         //회원 이름 검색
         if (StringUtils.hasText(orderSearch.getMemberName())) {
-            Predicate name =
-                    cb.like(m.<String>get("name"), "%" +
-                            orderSearch.getMemberName() + "%");
+            // like '%name%'는 member 테이블 전체를 읽으니까 이름 인덱스(member_name_trigram)에서 찾은 회원 id로
+            // (서브쿼리 - 검색어 길이, 일치하는 회원 수와 상관없이 인덱스만 읽음)
+            Predicate name = o.get("member").get("id")
+                    .in(memberNameIndex.idsSubquery(cb, cq, orderSearch.getMemberName()));
             criteria.add(name);
         }
+        //주문일 검색 (to는 그 날 하루 전체 포함)
+        if (orderSearch.getOrderDateFrom() != null) {
+            Predicate from = cb.greaterThanOrEqualTo(o.get("orderDate"),
+                    orderSearch.getOrderDateFrom().atStartOfDay());
+            criteria.add(from);
+        }
+        if (orderSearch.getOrderDateTo() != null) {
+            Predicate to = cb.lessThan(o.get("orderDate"),
+                    orderSearch.getOrderDateTo().plusDays(1).atStartOfDay());
+            criteria.add(to);
+        }
+        //주문상품 검색 (order_item 조인하면 주문이 상품 수만큼 늘어나니까 서브쿼리로)
+        if (orderSearch.getItemId() != null) {
+            Subquery<Long> itemOrders = cq.subquery(Long.class);
+            Root<OrderItem> oi = itemOrders.from(OrderItem.class);
+            itemOrders.select(oi.get("order").get("id"))
+                    .where(cb.equal(oi.get("item").get("id"), orderSearch.getItemId()));
+            criteria.add(o.get("id").in(itemOrders));
+        }
         cq.where(cb.and(criteria.toArray(new Predicate[criteria.size()])));
+        //정렬 (같은 주문일이면 id 순으로 => 페이지마다 결과가 바뀌지 않게)
+        OrderSort sort = orderSearch.getSort() == null ? OrderSort.ID_ASC : orderSearch.getSort();
+        switch (sort) {
+            case ORDER_DATE_DESC -> cq.orderBy(cb.desc(o.get("orderDate")), cb.desc(o.get("id")));
+            case ORDER_DATE_ASC -> cq.orderBy(cb.asc(o.get("orderDate")), cb.asc(o.get("id")));
+            default -> cq.orderBy(cb.asc(o.get("id")));
+        }
         TypedQuery<Order> query = em.createQuery(cq).setMaxResults(1000); //최대 1000건
         return query.getResultList();
     }
@@ -103,4 +133,45 @@ public class OrderRepository {
                                 " join fetch oi.item i", Order.class)
                 .getResultList();
     }
+
+    /**
+     * OrderApiController의 v3.1 (1단계)
+     * ToOne(member, delivery)은 fetch join으로 같이 가져오고,
+     * order id 기준 keyset 페이징 (after 다음 id부터 limit개)
+     * => offset을 안쓰기 때문에 뒤 페이지로 가도 앞의 row를 다시 읽지 않음 (PK 인덱스만 탐)
+     */
+    public List<Order> findAllWithMemberDelivery(Long after, int limit) {
+        return em.createQuery(
+                        "select o from Order o" +
+                                " join fetch o.member m" +
+                                " join fetch o.delivery d" +
+                                " where o.id > :after" +
+                                " order by o.id", Order.class)
+                .setParameter("after", after)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * OrderApiController의 v3.1 (2단계)
+     * 1단계에서 가져온 주문들의 컬렉션(orderItems, item)을 IN 쿼리 한번으로 초기화
+     * 같은 영속성 컨텍스트 안의 Order 엔티티에 컬렉션이 채워지므로 결과는 따로 안써도 됨
+     * (주문상품이 없는 주문도 컬렉션이 초기화되도록 left join)
+     */
+    public void fetchOrderItems(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        List<Long> orderIds = orders.stream()
+                .map(Order::getId)
+                .collect(Collectors.toList());
+
+        em.createQuery(
+                        "select o from Order o" +
+                                " left join fetch o.orderItems oi" +
+                                " left join fetch oi.item i" +
+                                " where o.id in :orderIds", Order.class)
+                .setParameter("orderIds", orderIds)
+                .getResultList();
+    }
 }
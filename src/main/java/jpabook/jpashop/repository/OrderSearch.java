@@ -3,6 +3,9 @@ package jpabook.jpashop.repository;
 import jpabook.jpashop.domain.OrderStatus;
 import lombok.Getter;
 import lombok.Setter;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
 
 @Getter
 @Setter
@@ -14,4 +17,17 @@ public class OrderSearch {
     // 주문상태 [ORDER, CANCEL]
     private OrderStatus orderStatus;
 
+    // 주문일 범위 (from ~ to, 둘 다 포함)
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate orderDateFrom;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate orderDateTo;
+
+    // 주문한 상품
+    private Long itemId;
+
+    // 정렬 (없으면 주문 id 순)
+    private OrderSort sort;
+
 }
@@ -0,0 +1,9 @@
+package jpabook.jpashop.repository;
+
+// 주문 검색 정렬 [ID_ASC, ORDER_DATE_DESC, ORDER_DATE_ASC]
+// 모두 인덱스 순서로 읽을 수 있는 정렬만 제공 (Order의 @Table(indexes) 참고)
+public enum OrderSort {
+
+    ID_ASC, ORDER_DATE_DESC, ORDER_DATE_ASC
+
+}
@@ -0,0 +1,40 @@
+package jpabook.jpashop.repository.order.query;
+
+import java.util.ArrayList;
+
+/**
+ * order id 순으로 정렬된 flat row(OrderFlatDto)를 하나씩 받아서 주문 DTO로 묶음
+ * 목록 조회(OrderQueryRepository.findAllByDto_flat)와 전체 주문 내보내기(OrderExportService)가 같이 사용
+ *
+ * 다음 주문의 row가 들어오면 이전 주문이 완성된 것 => add()가 완성된 주문을 돌려줌
+ * row를 다 넣은 뒤에는 finish()로 마지막 주문을 꺼냄
+ */
+public class OrderFlatAccumulator {
+
+    private OrderQueryDto current;
+
+    /**
+     * @return 이 row로 완성된 (이전) 주문, 아직 완성된 주문이 없으면 null
+     */
+    public OrderQueryDto add(OrderFlatDto flat) {
+        OrderQueryDto completed = null;
+        if (current == null || !current.getOrderId().equals(flat.getOrderId())) {
+            completed = current;
+            current = new OrderQueryDto(flat.getOrderId(), flat.getName(), flat.getOrderDate(), flat.getOrderStatus(), flat.getAddress());
+            current.setOrderItems(new ArrayList<>());
+        }
+        if (flat.getOrderItemId() != null) { // 주문상품이 없는 주문은 주문상품 쪽이 전부 null (상품 이름만으로는 구분 못함)
+            current.getOrderItems().add(new OrderItemQueryDto(flat.getOrderId(), flat.getItemName(), flat.getOrderPrice(), flat.getCount()));
+        }
+        return completed;
+    }
+
+    /**
+     * @return 마지막 주문, row가 하나도 없었으면 null
+     */
+    public OrderQueryDto finish() {
+        OrderQueryDto last = current;
+        current = null;
+        return last;
+    }
+}
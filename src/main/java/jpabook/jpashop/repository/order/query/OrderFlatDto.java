@@ -0,0 +1,39 @@
+package jpabook.jpashop.repository.order.query;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Order, Member, Delivery, OrderItem, Item을 한번에 조인한 한 줄(row)
+ * 주문상품이 없는 주문도 나오도록 left join => 주문상품 쪽 값은 null일 수 있음 (주문상품이 있는지는 orderItemId로 - 상품 이름은 null일 수 있음)
+ */
+@Data
+public class OrderFlatDto {
+
+    private Long orderId;
+    private String name;
+    private LocalDateTime orderDate;
+    private OrderStatus orderStatus;
+    private Address address;
+
+    private Long orderItemId;
+    private String itemName;
+    private Integer orderPrice;
+    private Integer count;
+
+    public OrderFlatDto(Long orderId, String name, LocalDateTime orderDate, OrderStatus orderStatus, Address address,
+                        Long orderItemId, String itemName, Integer orderPrice, Integer count) {
+        this.orderId = orderId;
+        this.name = name;
+        this.orderDate = orderDate;
+        this.orderStatus = orderStatus;
+        this.address = address;
+        this.orderItemId = orderItemId;
+        this.itemName = itemName;
+        this.orderPrice = orderPrice;
+        this.count = count;
+    }
+}
@@ -0,0 +1,126 @@
+package jpabook.jpashop.repository.order.query;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 화면/API에 맞춘 주문 조회 전용 repository
+ * (엔티티 조회용 OrderRepository와 분리)
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderQueryRepository {
+
+    // order id 순으로 정렬해야 같은 주문의 row가 연속으로 나옴
+    private static final String ORDER_FLAT_QUERY =
+            "select new jpabook.jpashop.repository.order.query.OrderFlatDto(o.id, m.name, o.orderDate, o.status, d.address, oi.id, i.name, oi.orderPrice, oi.count)" +
+                    " from Order o" +
+                    " join o.member m" +
+                    " join o.delivery d" +
+                    " left join o.orderItems oi" +
+                    " left join oi.item i" +
+                    " order by o.id, oi.id";
+
+    private final EntityManager em;
+
+    /**
+     * OrderApiController의 v4
+     * 1. ToOne(member, delivery)은 조인해서 주문 DTO로 한번에 조회
+     * 2. 컬렉션(orderItems)은 주문 id들로 IN 쿼리 한번에 조회 후 메모리에서 Map으로 묶어서 채움
+     * => 데이터가 아무리 많아도 쿼리 2번 (N+1 없음, 1:N 조인으로 row가 뻥튀기되지도 않음)
+     */
+    public List<OrderQueryDto> findAllByDto_optimization() {
+        List<OrderQueryDto> result = findOrders();
+
+        Map<Long, List<OrderItemQueryDto>> orderItemMap = findOrderItemMap(toOrderIds(result));
+
+        result.forEach(o -> o.setOrderItems(orderItemMap.getOrDefault(o.getOrderId(), List.of())));
+
+        return result;
+    }
+
+    /**
+     * OrderApiController의 v5
+     * 쿼리 1번으로 Order, Member, Delivery, OrderItem, Item을 전부 조인해서 flat row로 가져오고
+     * order id 순으로 정렬된 row를 하나씩 읽으면서 바로 주문 DTO로 묶음 (OrderFlatAccumulator)
+     * => row 전체를 담는 중간 List를 만들지 않음 (row 수만큼 주문 컬럼이 중복되는건 감수)
+     */
+    public List<OrderQueryDto> findAllByDto_flat() {
+        List<OrderQueryDto> result = new ArrayList<>();
+
+        try (Stream<OrderFlatDto> flats = findOrderFlats()) {
+            OrderFlatAccumulator accumulator = new OrderFlatAccumulator();
+            for (OrderFlatDto flat : (Iterable<OrderFlatDto>) flats::iterator) {
+                OrderQueryDto completed = accumulator.add(flat);
+                if (completed != null) {
+                    result.add(completed);
+                }
+            }
+            OrderQueryDto last = accumulator.finish();
+            if (last != null) {
+                result.add(last);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * 전체 주문 내보내기용 (OrderExportService)
+     * findAllByDto_flat()과 같은 flat row를 앞으로만 읽는 커서(FORWARD_ONLY)로 조회
+     * => 결과를 List에 담지 않고 fetchSize만큼씩 DB에서 읽어옴 (트랜잭션 안에서 사용하고 꼭 close)
+     */
+    public ScrollableResults<OrderFlatDto> scrollOrderFlats(int fetchSize) {
+        return em.unwrap(Session.class)
+                .createSelectionQuery(ORDER_FLAT_QUERY, OrderFlatDto.class)
+                .setFetchSize(fetchSize)
+                .setReadOnly(true)
+                .scroll(ScrollMode.FORWARD_ONLY);
+    }
+
+    private Stream<OrderFlatDto> findOrderFlats() {
+        return em.createQuery(ORDER_FLAT_QUERY, OrderFlatDto.class)
+                .getResultStream();
+    }
+
+    private List<OrderQueryDto> findOrders() {
+        return em.createQuery(
+                        "select new jpabook.jpashop.repository.order.query.OrderQueryDto(o.id, m.name, o.orderDate, o.status, d.address)" +
+                                " from Order o" +
+                                " join o.member m" +
+                                " join o.delivery d", OrderQueryDto.class)
+                .getResultList();
+    }
+
+    private Map<Long, List<OrderItemQueryDto>> findOrderItemMap(List<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return Map.of();
+        }
+        List<OrderItemQueryDto> orderItems = em.createQuery(
+                        "select new jpabook.jpashop.repository.order.query.OrderItemQueryDto(oi.order.id, i.name, oi.orderPrice, oi.count)" +
+                                " from OrderItem oi" +
+                                " join oi.item i" +
+                                " where oi.order.id in :orderIds", OrderItemQueryDto.class)
+                .setParameter("orderIds", orderIds)
+                .getResultList();
+
+        return orderItems.stream()
+                .collect(Collectors.groupingBy(OrderItemQueryDto::getOrderId));
+    }
+
+    private List<Long> toOrderIds(List<OrderQueryDto> result) {
+        return result.stream()
+                .map(OrderQueryDto::getOrderId)
+                .collect(Collectors.toList());
+    }
+}
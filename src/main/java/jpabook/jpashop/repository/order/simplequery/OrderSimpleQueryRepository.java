@@ -20,4 +20,20 @@ public class OrderSimpleQueryRepository {
                                 " join o.delivery d", OrderSimpleQueryDto.class)
                 .getResultList();
     }
+
+    /**
+     * order id 기준 keyset 페이징 (after 다음 id부터 limit개)
+     */
+    public List<OrderSimpleQueryDto> findOrderDtos(Long after, int limit) {
+        return em.createQuery(
+                        "select new jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryDto(o.id, m.name, o.orderDate, o.status, d.address) " +
+                                " from Order o" +
+                                " join o.member m" +
+                                " join o.delivery d" +
+                                " where o.id > :after" +
+                                " order by o.id", OrderSimpleQueryDto.class)
+                .setParameter("after", after)
+                .setMaxResults(limit)
+                .getResultList();
+    }
 }
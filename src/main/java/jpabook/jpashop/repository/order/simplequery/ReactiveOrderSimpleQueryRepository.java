@@ -0,0 +1,54 @@
+package jpabook.jpashop.repository.order.simplequery;
+
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * OrderSimpleQueryRepository(JPA, 블로킹)를 Flux로 감싼 것
+ * - 구독자가 요청(request)할 때만 다음 페이지를 읽음 (keyset 페이징) => 느린 클라이언트는 느리게 읽음
+ * - 쿼리는 boundedElastic 스레드에서 실행 (요청 스레드, 이벤트 루프를 막지 않음)
+ * - 페이지마다 따로 읽기 전용 트랜잭션 => 페이지 사이에는 커넥션을 잡고 있지 않음
+ *   (대신 전체가 한 시점의 스냅샷은 아님, 읽는 도중 추가된 주문은 id가 크면 뒤에 나옴)
+ */
+@Repository
+public class ReactiveOrderSimpleQueryRepository {
+
+    private final OrderSimpleQueryRepository orderSimpleQueryRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public ReactiveOrderSimpleQueryRepository(OrderSimpleQueryRepository orderSimpleQueryRepository,
+                                              PlatformTransactionManager transactionManager) {
+        this.orderSimpleQueryRepository = orderSimpleQueryRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * after 다음 주문부터 끝까지 (order id 순서)
+     * @param pageSize 한번에 읽는 주문 수
+     */
+    public Flux<OrderSimpleQueryDto> findOrderDtos(Long after, int pageSize) {
+        return Flux.<List<OrderSimpleQueryDto>, Long>generate(() -> after, (cursor, sink) -> {
+                    List<OrderSimpleQueryDto> page = readOnlyTransaction.execute(status ->
+                            orderSimpleQueryRepository.findOrderDtos(cursor, pageSize));
+                    if (page.isEmpty()) {
+                        sink.complete();
+                        return cursor;
+                    }
+                    sink.next(page);
+                    if (page.size() < pageSize) {
+                        sink.complete();
+                    }
+                    return page.get(page.size() - 1).getOrderId();
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                // 페이지는 한 개씩 요청 => 내보내는 중인 페이지 다음 한 페이지까지만 미리 읽음
+                .concatMapIterable(Function.identity(), 1);
+    }
+}
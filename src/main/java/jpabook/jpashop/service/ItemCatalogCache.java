@@ -0,0 +1,108 @@
+package jpabook.jpashop.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 상품 카탈로그 캐시 (ItemService.findOne / findAll 앞단)
+ * - 상품 하나 : Caffeine(W-TinyLFU) 크기 제한 캐시
+ * - 상품 전체 목록 : 버전이 붙은 목록 하나
+ * 상품이 바뀌면(저장, 수정, 주문/취소로 재고 변경) 트랜잭션 커밋 후에 무효화하고 버전을 올림
+ * => 목록을 읽는 도중에 버전이 바뀌었으면 읽어온 목록은 캐시에 넣지 않음 (이전 데이터가 다시 들어가지 않도록)
+ *
+ * 무효화를 거치지 않는 변경(다른 인스턴스의 주문, SQL로 직접 수정 등)도 있으니 상품, 목록 모두 ttl이 지나면 다시 읽음
+ * => 그런 변경은 최대 ttl 동안 이전 값이 보임
+ */
+@Component
+public class ItemCatalogCache {
+
+    private static final int MAX_ITEMS = 10_000;
+
+    private final Cache<Long, ItemSnapshot> items;
+    private final Ticker ticker;
+    private final long ttlNanos;
+
+    private final AtomicLong version = new AtomicLong();
+    private volatile Catalog catalog;
+
+    @Autowired
+    public ItemCatalogCache(MeterRegistry meterRegistry,
+                            @Value("${jpashop.item.catalog-cache.ttl:30s}") Duration ttl) {
+        this(meterRegistry, ttl, Ticker.systemTicker());
+    }
+
+    ItemCatalogCache(MeterRegistry meterRegistry, Duration ttl, Ticker ticker) {
+        this.ticker = ticker;
+        this.ttlNanos = ttl.toNanos();
+        this.items = Caffeine.newBuilder()
+                .maximumSize(MAX_ITEMS)
+                .expireAfterWrite(ttl)
+                .ticker(ticker)
+                .recordStats()
+                .build();
+        // 2차 캐시 지표(CacheMetricsConfig)와 태그 키를 맞춤 - Prometheus는 같은 이름의 지표는 태그 키가 같아야 함
+        CaffeineCacheMetrics.monitor(meterRegistry, items, "itemCatalog", "layer", "catalog");
+    }
+
+    /**
+     * loader가 null을 돌려주면(없는 상품) 캐시하지 않음
+     */
+    public ItemSnapshot get(Long itemId, Function<Long, ItemSnapshot> loader) {
+        return items.get(itemId, loader);
+    }
+
+    public List<ItemSnapshot> getAll(Supplier<List<ItemSnapshot>> loader) {
+        long current = version.get();
+        Catalog cached = catalog;
+        if (cached != null && cached.version() == current && ticker.read() - cached.loadedAt() < ttlNanos) {
+            return cached.items();
+        }
+
+        long loadedAt = ticker.read();
+        List<ItemSnapshot> loaded = List.copyOf(loader.get());
+        if (version.get() == current) {
+            catalog = new Catalog(current, loadedAt, loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * 트랜잭션이 커밋된 후에 무효화 (롤백되면 캐시는 그대로)
+     * 트랜잭션 밖에서 호출하면 바로 무효화
+     */
+    public void evictAfterCommit(Long itemId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(itemId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(itemId);
+            }
+        });
+    }
+
+    public void evict(Long itemId) {
+        version.incrementAndGet();
+        catalog = null;
+        items.invalidate(itemId);
+    }
+
+    private record Catalog(long version, long loadedAt, List<ItemSnapshot> items) {
+    }
+}
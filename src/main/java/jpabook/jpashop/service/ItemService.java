@@ -1,13 +1,16 @@
 package jpabook.jpashop.service;
 
+import io.micrometer.core.annotation.Timed;
 import jpabook.jpashop.domain.item.Book;
 import jpabook.jpashop.domain.item.Item;
 import jpabook.jpashop.repository.ItemRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional(readOnly = true)
@@ -15,29 +18,48 @@ import java.util.List;
 public class ItemService {
 
     private final ItemRepository itemRepository;
+    private final ItemCatalogCache itemCatalogCache;
+    private final StockReservationEngine stockReservationEngine;
 
     @Transactional
     public void saveItem(Item item) {
         itemRepository.save(item);
+        itemCatalogCache.evictAfterCommit(item.getId());
     }
 
-    public Item findOne(Long itemId) {
-        return itemRepository.findOne(itemId);
+    /**
+     * 조회는 카탈로그 캐시에서 (없으면 DB 조회 후 캐시에 저장, 없는 상품이면 null - 캐시하지 않음)
+     * 캐시를 채우는 조회는 primary에서 : SUPPORTS라 readOnly 트랜잭션을 열지 않음 => ReadWriteRoutingDataSource가 primary로 보냄
+     * (replica에서 읽으면 방금 수정/주문한 상품의 이전 값이 무효화 직후 캐시에 들어가서 ttl 동안 남음)
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public ItemSnapshot findOne(Long itemId) {
+        return itemCatalogCache.get(itemId, id -> {
+            Item item = itemRepository.findOne(id);
+            return item == null ? null : ItemSnapshot.of(item);
+        });
     }
 
-    public List<Item> findAll() {
-        return itemRepository.findAll();
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<ItemSnapshot> findAll() {
+        return itemCatalogCache.getAll(() -> itemRepository.findAll().stream()
+                .map(ItemSnapshot::of)
+                .collect(Collectors.toList()));
     }
 
     /**
      * 수정 - 변경감지 버전
      */
     @Transactional
+    @Timed("jpashop.service")
     public Item updateItem(Long itemId, String name, int price, int stockQuantity) {
         Item findItem = itemRepository.findOne(itemId);
+        int before = findItem.getStockQuantity();
         findItem.setName(name);
         findItem.setPrice(price);
         findItem.setStockQuantity(stockQuantity);
+        itemCatalogCache.evictAfterCommit(itemId);
+        stockReservationEngine.adjustAfterCommit(itemId, stockQuantity - before);
         return findItem;
     }
 }
@@ -0,0 +1,32 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import lombok.Value;
+
+/**
+ * 상품 카탈로그 캐시(ItemCatalogCache)에 담는 상품 정보
+ * 여러 요청(스레드)이 같은 객체를 같이 보기 때문에 엔티티 대신 변경 불가능한 값으로 복사해서 보관
+ */
+@Value
+public class ItemSnapshot {
+
+    Long id;
+    String name;
+    int price;
+    int stockQuantity;
+
+    // Book일 때만 값이 있음
+    String author;
+    String isbn;
+
+    public static ItemSnapshot of(Item item) {
+        String author = null;
+        String isbn = null;
+        if (item instanceof Book book) {
+            author = book.getAuthor();
+            isbn = book.getIsbn();
+        }
+        return new ItemSnapshot(item.getId(), item.getName(), item.getPrice(), item.getStockQuantity(), author, isbn);
+    }
+}
@@ -0,0 +1,31 @@
+package jpabook.jpashop.service;
+
+import lombok.Getter;
+
+/**
+ * 회원 가져오기 결과 (건수)
+ */
+@Getter
+public class MemberImportResult {
+
+    // 저장한 회원 수
+    private long imported;
+
+    // 이미 있는 이름이거나 파일 안에서 중복된 이름이라 건너뛴 수
+    private long duplicates;
+
+    // 이름이 비어있는 등 형식이 잘못된 줄 수
+    private long invalid;
+
+    void addImported(long count) {
+        imported += count;
+    }
+
+    void addDuplicates(long count) {
+        duplicates += count;
+    }
+
+    void addInvalid() {
+        invalid++;
+    }
+}
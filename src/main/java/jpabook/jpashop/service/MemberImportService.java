@@ -0,0 +1,181 @@
+package jpabook.jpashop.service;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.repository.MemberNameFilter;
+import jpabook.jpashop.repository.MemberNameIndex;
+import jpabook.jpashop.repository.MemberRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 회원 대량 가져오기 (CSV)
+ * - 파일 전체를 메모리에 올리지 않고 한 줄씩 읽어서 CHUNK_SIZE 건마다 저장
+ * - 중복 검사 : 회원마다 이름 조회(findByName) 대신 chunk마다 where name in (...) 한번
+ * - chunk마다 트랜잭션 커밋 (insert는 JDBC 배치), 저장 후 영속성 컨텍스트 비움 (OSIV라 요청 내내 같은 영속성 컨텍스트)
+ * - 같은 이름이 동시에 가입된 경우는 unique 인덱스(uk_member_name)가 막고 => 해당 chunk만 다시 검사해서 저장
+ *
+ * CSV 형식 : name,city,street,zipcode 또는 name 하나 (첫 줄이 name으로 시작하면 헤더로 보고 건너뜀)
+ * - 쉼표가 들어간 값은 따옴표로 감쌈 ("Seoul, Gangnam"), 따옴표는 두번 ("")
+ * - 한 줄이 한 회원 (값 안의 줄바꿈은 지원 안함)
+ * - 따옴표가 잘못됐거나 열 수가 맞지 않는 줄은 저장하지 않고 invalid로 셈 (열이 밀린 채로 저장되지 않도록)
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MemberImportService {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    private final MemberRepository memberRepository;
+    private final MemberNameIndex memberNameIndex;
+    private final MemberNameFilter memberNameFilter;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager em;
+
+    public MemberImportResult importCsv(Reader reader) throws IOException {
+        MemberImportResult result = new MemberImportResult();
+        BufferedReader lines = new BufferedReader(reader);
+
+        // 이름 -> 주소 (파일 안에서 같은 이름은 처음 것만)
+        Map<String, Address> chunk = new LinkedHashMap<>();
+        String line;
+        boolean first = true;
+        while ((line = lines.readLine()) != null) {
+            if (first && line.startsWith("\uFEFF")) {
+                line = line.substring(1);
+            }
+            if (first && line.trim().toLowerCase().startsWith("name")) {
+                first = false;
+                continue;
+            }
+            first = false;
+            if (line.isBlank()) {
+                continue;
+            }
+
+            List<String> columns = parseLine(line);
+            if (columns == null || (columns.size() != 1 && columns.size() != 4)) {
+                result.addInvalid();
+                continue;
+            }
+            String name = columns.get(0).trim();
+            if (name.isEmpty()) {
+                result.addInvalid();
+                continue;
+            }
+            Address address = columns.size() == 4
+                    ? new Address(columns.get(1).trim(), columns.get(2).trim(), columns.get(3).trim())
+                    : null;
+            if (chunk.containsKey(name)) {
+                result.addDuplicates(1);
+                continue;
+            }
+            chunk.put(name, address);
+            if (chunk.size() == CHUNK_SIZE) {
+                saveChunk(chunk, result);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            saveChunk(chunk, result);
+        }
+        return result;
+    }
+
+    private void saveChunk(Map<String, Address> chunk, MemberImportResult result) {
+        try {
+            saveNewMembers(chunk, result);
+        } catch (DataIntegrityViolationException | ConstraintViolationException e) {
+            // 검사한 뒤에 같은 이름이 가입됨 => 한번 더 검사해서 저장
+            log.info("member import: duplicate name committed concurrently, retrying chunk");
+            saveNewMembers(chunk, result);
+        }
+    }
+
+    private void saveNewMembers(Map<String, Address> chunk, MemberImportResult result) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Set<String> existing = new HashSet<>(memberRepository.findExistingNames(chunk.keySet()));
+            List<Member> saved = new ArrayList<>();
+            chunk.forEach((name, address) -> {
+                if (existing.contains(name)) {
+                    return;
+                }
+                Member member = new Member();
+                member.setName(name);
+                member.setAddress(address);
+                em.persist(member);
+                memberNameIndex.add(member.getId(), name);
+                memberNameFilter.put(name);
+                saved.add(member);
+            });
+            em.flush();
+            em.clear();
+
+            result.addImported(saved.size());
+            result.addDuplicates(chunk.size() - saved.size());
+        });
+    }
+
+    /**
+     * CSV 한 줄을 값 목록으로 (RFC 4180 - 따옴표로 감싼 값 안의 쉼표, "" 지원)
+     * @return 값 목록, 따옴표가 잘못됐으면(닫히지 않음, 값 중간의 따옴표, 닫는 따옴표 뒤의 글자) null
+     */
+    static List<String> parseLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        int i = 0;
+        while (true) {
+            if (i < line.length() && line.charAt(i) == '"') {
+                // 따옴표로 감싼 값 : 다음 단독 따옴표까지
+                i++;
+                while (true) {
+                    if (i >= line.length()) {
+                        return null;
+                    }
+                    char c = line.charAt(i++);
+                    if (c != '"') {
+                        value.append(c);
+                    } else if (i < line.length() && line.charAt(i) == '"') {
+                        value.append('"');
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                if (i < line.length() && line.charAt(i) != ',') {
+                    return null;
+                }
+            } else {
+                while (i < line.length() && line.charAt(i) != ',') {
+                    char c = line.charAt(i++);
+                    if (c == '"') {
+                        return null;
+                    }
+                    value.append(c);
+                }
+            }
+            values.add(value.toString());
+            value.setLength(0);
+            if (i >= line.length()) {
+                return values;
+            }
+            i++; // 쉼표
+        }
+    }
+}
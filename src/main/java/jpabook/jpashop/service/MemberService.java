@@ -1,10 +1,15 @@
 package jpabook.jpashop.service;
 
+import io.micrometer.core.annotation.Timed;
 import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.exception.DuplicateMemberException;
+import jpabook.jpashop.repository.MemberNameFilter;
+import jpabook.jpashop.repository.MemberNameIndex;
 import jpabook.jpashop.repository.MemberRepository;
 import lombok.AllArgsConstructor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -16,24 +21,45 @@ import java.util.List;
 public class MemberService {
 
     private final MemberRepository memberRepository;
+    private final MemberNameIndex memberNameIndex;
+    private final MemberNameFilter memberNameFilter;
 
     /**
      * 회원 가입
      */
     @Transactional
+    @Timed("jpashop.service")
     public Long join(Member member) {
         // 중복회원 검증
         validateDuplicateMember(member);
         memberRepository.save(member);
+        memberNameFilter.put(member.getName());
+
+        // 검증 후에 같은 이름이 먼저 가입됐으면 unique 인덱스에서 걸림 => 여기서 바로 insert해서 확인
+        try {
+            memberRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            throw new DuplicateMemberException("이미 존재하는 회원입니다.", e);
+        }
+        memberNameIndex.add(member.getId(), member.getName());
         return member.getId();
     }
 
     // 중복 회원 검증
+    // Bloom filter에 없는 이름이면 확실히 없는 이름 => 조회 쿼리 생략
     private void validateDuplicateMember(Member member) {
+        MemberNameFilter.Check filtered = memberNameFilter.check(member.getName());
+        if (filtered == MemberNameFilter.Check.ABSENT) {
+            return;
+        }
         // EXCEPTION
         List<Member> findMembers = memberRepository.findByName(member.getName());
         if (!findMembers.isEmpty()) {
-            throw new IllegalStateException("이미 존재하는 회원입니다.");
+            throw new DuplicateMemberException("이미 존재하는 회원입니다.");
+        }
+        // 필터가 실제로 maybe라고 답한 경우만 오탐 (적재 전에는 판단 없이 DB 확인한 것)
+        if (filtered == MemberNameFilter.Check.MAYBE) {
+            memberNameFilter.recordFalsePositive();
         }
     }
 
@@ -57,5 +83,7 @@ public class MemberService {
     public void update(Long id, String name) {
         Member member = memberRepository.findOne(id);
         member.setName(name);
+        memberNameFilter.put(name);
+        memberNameIndex.put(id, name);
     }
 }
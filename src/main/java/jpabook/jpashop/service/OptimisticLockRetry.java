@@ -0,0 +1,91 @@
+package jpabook.jpashop.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.OptimisticLockException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * 낙관적 락 충돌(@Version) 시 트랜잭션을 처음부터 다시 실행
+ * - 시도마다 새 트랜잭션 (충돌난 트랜잭션은 롤백되고 영속성 컨텍스트도 비워짐 => 다시 읽으면 최신 버전)
+ * - 최대 max-attempts 번, 재시도 전에 지수 백오프 + 랜덤 지터만큼 대기 (같이 충돌한 요청들이 또 동시에 몰리지 않도록)
+ * - 이미 바깥 트랜잭션 안에서 호출되면 재시도하지 않음 (커밋 시점을 바깥 트랜잭션이 가지고 있으므로)
+ *
+ * 메트릭 (operation 태그 = order, cancel)
+ * - jpashop.optimistic.attempts : 트랜잭션 시도 횟수
+ * - jpashop.optimistic.conflicts : 충돌 횟수 => 충돌률 = conflicts / attempts
+ * - jpashop.optimistic.retries : 재시도 횟수
+ * - jpashop.optimistic.exhausted : 재시도를 다 쓰고 실패한 횟수
+ */
+@Slf4j
+@Component
+public class OptimisticLockRetry {
+
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long backoffMillis;
+    private final long maxBackoffMillis;
+
+    public OptimisticLockRetry(TransactionTemplate transactionTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${jpashop.order.retry.max-attempts:5}") int maxAttempts,
+                               @Value("${jpashop.order.retry.backoff:10}") long backoffMillis,
+                               @Value("${jpashop.order.retry.max-backoff:200}") long maxBackoffMillis) {
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMillis = backoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    public <T> T execute(String operation, Supplier<T> action) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return action.get();
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            counter("jpashop.optimistic.attempts", operation).increment();
+            try {
+                return transactionTemplate.execute(status -> action.get());
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                counter("jpashop.optimistic.conflicts", operation).increment();
+                if (attempt >= maxAttempts) {
+                    counter("jpashop.optimistic.exhausted", operation).increment();
+                    throw e;
+                }
+                log.debug("optimistic lock conflict: operation={}, attempt={}", operation, attempt);
+                counter("jpashop.optimistic.retries", operation).increment();
+                backoff(attempt);
+            }
+        }
+    }
+
+    /**
+     * full jitter : 0 ~ min(max-backoff, backoff * 2^(attempt-1)) 사이 랜덤
+     */
+    private void backoff(int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, backoffMillis << Math.min(attempt - 1, 20));
+        if (ceiling <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("재시도 대기 중 인터럽트", e);
+        }
+    }
+
+    private Counter counter(String name, String operation) {
+        return meterRegistry.counter(name, "operation", operation);
+    }
+}
@@ -0,0 +1,20 @@
+package jpabook.jpashop.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * 대량 주문(OrderService.bulkOrder)의 주문 하나
+ */
+@Getter
+@AllArgsConstructor
+public class OrderCommand {
+
+    private Long memberId;
+
+    // 상품 id -> 수량
+    private Map<Long, Integer> itemCounts;
+
+}
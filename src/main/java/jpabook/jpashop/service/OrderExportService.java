@@ -0,0 +1,65 @@
+package jpabook.jpashop.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jpabook.jpashop.repository.order.query.OrderFlatAccumulator;
+import jpabook.jpashop.repository.order.query.OrderFlatDto;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.ScrollableResults;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 전체 주문 내보내기 (NDJSON : 한 줄에 주문 하나)
+ * 커서로 row를 읽으면서 주문 하나가 완성될 때마다 바로 출력
+ * => 주문이 몇 건이든 메모리에는 지금 만들고 있는 주문 하나 + chunk 만큼만 올라감
+ */
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class OrderExportService {
+
+    // 커서 fetch size, 이 건수마다 출력 버퍼를 비움
+    // (DTO로 조회하고 setReadOnly라서 영속성 컨텍스트에는 쌓이는게 없음 => clear 필요 없음)
+    private static final int CHUNK_SIZE = 500;
+
+    private final OrderQueryRepository orderQueryRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * @return 내보낸 주문 수
+     */
+    public long exportOrders(OutputStream out) throws IOException {
+        long exported = 0;
+
+        try (ScrollableResults<OrderFlatDto> flats = orderQueryRepository.scrollOrderFlats(CHUNK_SIZE)) {
+            OrderFlatAccumulator accumulator = new OrderFlatAccumulator();
+            while (flats.next()) {
+                OrderQueryDto completed = accumulator.add(flats.get());
+                if (completed != null) {
+                    writeLine(out, completed);
+                    if (++exported % CHUNK_SIZE == 0) {
+                        out.flush();
+                    }
+                }
+            }
+            OrderQueryDto last = accumulator.finish();
+            if (last != null) {
+                writeLine(out, last);
+                exported++;
+            }
+        }
+
+        out.flush();
+        return exported;
+    }
+
+    private void writeLine(OutputStream out, OrderQueryDto order) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(order));
+        out.write('\n');
+    }
+}
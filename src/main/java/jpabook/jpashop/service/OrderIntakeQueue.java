@@ -0,0 +1,232 @@
+package jpabook.jpashop.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.exception.OrderQueueFullException;
+import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.repository.MemberRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 비동기 주문 접수 (group commit)
+ * - 요청은 검증만 하고 큐에 넣은 뒤 접수표(ticket) id로 바로 응답 (202 Accepted)
+ * - 쓰기 스레드 하나가 큐에서 최대 batch-size 건씩 꺼내서 한 트랜잭션으로 저장 => 커밋(fsync)은 주문 N건에 한번
+ * - 재고 부족, 없는 회원/상품인 주문은 묶음 트랜잭션 안에서 그 주문만 FAILED (OrderService.orderInBatch - 실패해도 rollback-only가 되지 않음)
+ * - 그 밖의 실패(낙관적 락 충돌, DB 오류 등)는 그 묶음을 롤백하고 한 건씩 다시 저장
+ * - 큐가 가득 차면 OrderQueueFullException (503) => 클라이언트가 잠시 후 재시도 (backpressure)
+ * - 접수표는 저장/실패한 뒤 ticket-ttl 동안 조회 가능 (QUEUED인 동안은 만료되지 않음 - 큐 크기만큼만 쌓임)
+ *
+ * 큐는 메모리에만 있으므로 종료할 때는 남은 주문을 다 저장하고 내려감 (강제 종료되면 QUEUED 주문은 유실)
+ */
+@Slf4j
+@Component
+public class OrderIntakeQueue {
+
+    private final OrderService orderService;
+    private final MemberRepository memberRepository;
+    private final ItemRepository itemRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final BlockingQueue<OrderTicket> queue;
+    private final int batchSize;
+    private final Cache<String, OrderTicket> tickets;
+
+    private final Counter rejected;
+    private final DistributionSummary batchSizes;
+
+    private volatile boolean running = true;
+    private Thread writer;
+
+    public OrderIntakeQueue(OrderService orderService,
+                            MemberRepository memberRepository,
+                            ItemRepository itemRepository,
+                            TransactionTemplate transactionTemplate,
+                            MeterRegistry meterRegistry,
+                            @Value("${jpashop.order.intake.capacity:10000}") int capacity,
+                            @Value("${jpashop.order.intake.batch-size:200}") int batchSize,
+                            @Value("${jpashop.order.intake.ticket-ttl:10m}") Duration ticketTtl) {
+        this.orderService = orderService;
+        this.memberRepository = memberRepository;
+        this.itemRepository = itemRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.tickets = Caffeine.newBuilder()
+                .expireAfter(new TicketExpiry(ticketTtl))
+                .build();
+
+        meterRegistry.gaugeCollectionSize("jpashop.order.intake.queue.size", List.of(), queue);
+        this.rejected = meterRegistry.counter("jpashop.order.intake.rejected");
+        this.batchSizes = DistributionSummary.builder("jpashop.order.intake.batch.size")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        writer = new Thread(this::drain, "order-intake-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    /**
+     * 주문 접수 (회원, 상품이 있는지만 확인하고 큐에 넣음)
+     * 확인은 쓰기 트랜잭션(primary)에서 => 방금 가입한 회원, 방금 등록한 상품도 replica 지연과 상관없이 접수
+     * @return 접수표
+     */
+    public OrderTicket submit(Long memberId, Map<Long, Integer> itemCounts) {
+        if (memberId == null) {
+            throw new IllegalArgumentException("회원을 선택해주세요.");
+        }
+        if (itemCounts.isEmpty()) {
+            throw new IllegalArgumentException("주문할 상품이 없습니다.");
+        }
+        itemCounts.forEach((itemId, count) -> {
+            if (itemId == null || count == null || count <= 0) {
+                throw new IllegalArgumentException("주문 수량은 1 이상이어야 합니다. id=" + itemId + ", count=" + count);
+            }
+        });
+        transactionTemplate.executeWithoutResult(status -> {
+            if (memberRepository.findOne(memberId) == null) {
+                throw new IllegalArgumentException("존재하지 않는 회원입니다. id=" + memberId);
+            }
+            if (itemRepository.findPrices(itemCounts.keySet()).size() != itemCounts.size()) {
+                throw new IllegalArgumentException("존재하지 않는 상품입니다. id=" + itemCounts.keySet());
+            }
+        });
+
+        OrderTicket ticket = new OrderTicket(UUID.randomUUID().toString(), memberId, Map.copyOf(itemCounts));
+        tickets.put(ticket.getId(), ticket);
+        if (!queue.offer(ticket)) {
+            tickets.invalidate(ticket.getId());
+            rejected.increment();
+            throw new OrderQueueFullException("주문이 밀려 있습니다. 잠시 후 다시 시도해주세요.");
+        }
+        return ticket;
+    }
+
+    public Optional<OrderTicket> findTicket(String ticketId) {
+        return Optional.ofNullable(tickets.getIfPresent(ticketId));
+    }
+
+    private void drain() {
+        List<OrderTicket> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                OrderTicket first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("order intake writer failed", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<OrderTicket> batch) {
+        batchSizes.record(batch.size());
+        try {
+            // 주문 id, 실패한 주문은 실패 사유 (커밋된 뒤에 접수표에 반영)
+            List<Object> results = transactionTemplate.execute(status -> {
+                List<Object> written = new ArrayList<>(batch.size());
+                for (OrderTicket ticket : batch) {
+                    try {
+                        written.add(orderService.orderInBatch(ticket.getMemberId(), ticket.getItemCounts()));
+                    } catch (NotEnoughStockException | IllegalArgumentException e) {
+                        // 재고를 바꾸기 전에 실패 => 이 주문만 빼고 계속
+                        written.add(e.getMessage());
+                    }
+                }
+                return written;
+            });
+            for (int i = 0; i < batch.size(); i++) {
+                Object result = results.get(i);
+                if (result instanceof Long orderId) {
+                    complete(batch.get(i), orderId);
+                } else {
+                    fail(batch.get(i), (String) result);
+                }
+            }
+        } catch (RuntimeException e) {
+            // 낙관적 락 충돌, DB 오류 등 => 묶음 전체가 롤백됐으니 한 건씩 (각자 트랜잭션, 낙관적 락 충돌은 재시도)
+            log.debug("group commit failed, writing {} orders one by one", batch.size(), e);
+            for (OrderTicket ticket : batch) {
+                try {
+                    complete(ticket, orderService.order(ticket.getMemberId(), ticket.getItemCounts()));
+                } catch (RuntimeException single) {
+                    fail(ticket, single.getMessage());
+                }
+            }
+        }
+    }
+
+    private void complete(OrderTicket ticket, Long orderId) {
+        ticket.complete(orderId);
+        tickets.put(ticket.getId(), ticket);
+    }
+
+    private void fail(OrderTicket ticket, String reason) {
+        ticket.fail(reason);
+        tickets.put(ticket.getId(), ticket);
+    }
+
+    /**
+     * 접수표 만료 : QUEUED는 만료 안됨, COMPLETED/FAILED가 되면(다시 put) 그때부터 ttl
+     */
+    static class TicketExpiry implements Expiry<String, OrderTicket> {
+
+        private final long ttlNanos;
+
+        TicketExpiry(Duration ttl) {
+            this.ttlNanos = ttl.toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(String ticketId, OrderTicket ticket, long currentTime) {
+            return ticket.getStatus() == OrderTicket.Status.QUEUED ? Long.MAX_VALUE : ttlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String ticketId, OrderTicket ticket, long currentTime, long currentDuration) {
+            return expireAfterCreate(ticketId, ticket, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String ticketId, OrderTicket ticket, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -1,45 +1,76 @@
 package jpabook.jpashop.service;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
 import jpabook.jpashop.domain.Delivery;
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderItem;
 import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.exception.NotEnoughStockException;
 import jpabook.jpashop.repository.ItemRepository;
 import jpabook.jpashop.repository.MemberRepository;
 import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.OrderSearch;
 import lombok.AllArgsConstructor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional(readOnly = true)
 @RequiredArgsConstructor
 public class OrderService {
 
+    // 대량 주문에서 이 건수마다 flush + clear (insert는 hibernate.jdbc.batch_size 단위로 묶여서 나감)
+    private static final int BULK_CHUNK_SIZE = 500;
+
     private final OrderRepository orderRepository;
     private final MemberRepository memberRepository;
     private final ItemRepository itemRepository;
+    private final ItemCatalogCache itemCatalogCache;
+    private final StockReservationEngine stockReservationEngine;
+    private final OptimisticLockRetry optimisticLockRetry;
+    private final EntityManager em;
+
+    @Value("${jpashop.stock.mode:ENTITY}")
+    private StockMode stockMode;
 
     /**
      * 주문 진행
+     * 트랜잭션은 OptimisticLockRetry가 시도마다 새로 시작 (낙관적 락 충돌시 재시도)
+     * SUPPORTS : 바깥 트랜잭션이 있으면 거기에 참여, 없으면 여기서 트랜잭션을 시작하지 않음
      */
-    @Transactional
+    @Transactional(propagation = Propagation.SUPPORTS)
+    @Timed("jpashop.service")
     public Long order(Long memberId, Long itemId, int count) {
+        checkCount(itemId, count);
+        return optimisticLockRetry.execute("order", () -> placeOrder(memberId, itemId, count));
+    }
+
+    private Long placeOrder(Long memberId, Long itemId, int count) {
         // 엔티티 조회
         Member member = memberRepository.findOne(memberId);
-        Item item = itemRepository.findOne(itemId);
 
         // 배송정보 생성
         Delivery delivery = new Delivery();
         delivery.setAddress(member.getAddress());
 
         // 주문상품 생성 (entity에서 만들어준 메서드 바로 호출)
-        OrderItem orderItem = OrderItem.createOrderItem(item, item.getPrice(), count);
+        OrderItem orderItem = createOrderItem(itemId, count);
 
         // 주문 생성 (entity에서 만들어준 메서드 바로 호출)
         Order order = Order.createOrder(member, delivery, orderItem);
@@ -48,21 +79,274 @@ public class OrderService {
         // Order.java에 있는 cascadType.ALL로 인하여 order에만 저장해도 됨
         orderRepository.save(order);
 
+        // 재고가 바뀌었으니 커밋 후 카탈로그 캐시 무효화
+        itemCatalogCache.evictAfterCommit(itemId);
+
+        return order.getId();
+    }
+
+    /**
+     * 장바구니 주문 (상품 여러개를 주문 하나로)
+     * - 상품은 IN 쿼리 한번으로 조회
+     * - 재고 차감/락은 상품 id 오름차순 => 두 주문이 같은 상품들을 서로 반대 순서로 잡아서 데드락 나는 일이 없음
+     *   (ENTITY 모드는 flush할 때 update가 id 순서로 나가도록 hibernate.order_updates 설정)
+     * - 주문, 주문상품, 배송은 커밋할 때 flush 한번
+     * @param itemCounts 상품 id -> 수량 (같은 상품은 합쳐서 전달)
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    @Timed("jpashop.service")
+    public Long order(Long memberId, Map<Long, Integer> itemCounts) {
+        checkCounts(itemCounts);
+        SortedMap<Long, Integer> sorted = new TreeMap<>(itemCounts);
+        return optimisticLockRetry.execute("checkout", () -> placeCartOrder(memberId, sorted));
+    }
+
+    /**
+     * 묶음 저장용 장바구니 주문 (OrderIntakeQueue가 주문 N건을 한 트랜잭션으로 저장할 때)
+     * 재고 부족, 없는 회원/상품은 아무것도 바꾸기 전에(혹은 되돌린 뒤에) 예외
+     * => noRollbackFor라서 바깥 트랜잭션이 rollback-only가 되지 않음, 호출한 쪽은 그 주문만 빼고 나머지를 그대로 커밋
+     * 그 밖의 예외(낙관적 락 충돌, DB 오류 등)는 바깥 트랜잭션째로 롤백
+     */
+    @Transactional(propagation = Propagation.MANDATORY,
+            noRollbackFor = {NotEnoughStockException.class, IllegalArgumentException.class})
+    public Long orderInBatch(Long memberId, Map<Long, Integer> itemCounts) {
+        checkCounts(itemCounts);
+        return placeCartOrder(memberId, new TreeMap<>(itemCounts));
+    }
+
+    private Long placeCartOrder(Long memberId, SortedMap<Long, Integer> itemCounts) {
+        Member member = memberRepository.findOne(memberId);
+        if (member == null) {
+            throw new IllegalArgumentException("존재하지 않는 회원입니다. id=" + memberId);
+        }
+
+        Delivery delivery = new Delivery();
+        delivery.setAddress(member.getAddress());
+
+        List<OrderItem> orderItems = createOrderItems(itemCounts);
+        Order order = Order.createOrder(member, delivery, orderItems.toArray(new OrderItem[0]));
+        orderRepository.save(order);
+
+        for (Long itemId : itemCounts.keySet()) {
+            itemCatalogCache.evictAfterCommit(itemId);
+        }
         return order.getId();
     }
 
     /**
-     * 주문 취소 메서드
+     * 대량 주문 (마켓플레이스 피드 등)
+     * - BULK_CHUNK_SIZE 건마다 회원/상품을 IN 쿼리 한번씩 조회하고, 재고는 상품별 합계로 처리
+     * - chunk가 끝나면 flush + clear => JDBC 배치로 insert, 영속성 컨텍스트는 chunk 크기 이상 안 커짐
+     *   바깥 트랜잭션에 참여한 경우에는 flush만 (clear하면 호출한 쪽이 읽어둔 엔티티까지 준영속이 되니까)
+     *   => 이때는 영속성 컨텍스트가 주문 수만큼 커짐
+     * - 전체가 한 트랜잭션 (하나라도 실패하면 전부 롤백)
+     * @return 저장한 주문 수
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public int bulkOrder(List<OrderCommand> commands) {
+        commands.forEach(command -> checkCounts(command.getItemCounts()));
+        boolean ownsTransaction = !TransactionSynchronizationManager.isActualTransactionActive();
+        return optimisticLockRetry.execute("bulk", () -> placeBulkOrders(commands, ownsTransaction));
+    }
+
+    private int placeBulkOrders(List<OrderCommand> commands, boolean ownsTransaction) {
+        Set<Long> itemIds = new TreeSet<>();
+        for (int from = 0; from < commands.size(); from += BULK_CHUNK_SIZE) {
+            List<OrderCommand> chunk = commands.subList(from, Math.min(from + BULK_CHUNK_SIZE, commands.size()));
+            placeChunk(chunk);
+            chunk.forEach(command -> itemIds.addAll(command.getItemCounts().keySet()));
+
+            em.flush();
+            if (ownsTransaction) {
+                em.clear();
+            }
+        }
+
+        itemIds.forEach(itemCatalogCache::evictAfterCommit);
+        return commands.size();
+    }
+
+    private void placeChunk(List<OrderCommand> chunk) {
+        Map<Long, Member> members = memberRepository.findAllById(chunk.stream()
+                        .map(OrderCommand::getMemberId)
+                        .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Member::getId, member -> member));
+
+        SortedMap<Long, Integer> totalCounts = new TreeMap<>();
+        chunk.forEach(command -> command.getItemCounts().forEach((itemId, count) -> totalCounts.merge(itemId, count, Integer::sum)));
+        Map<Long, StockedItem> items = prepareItems(totalCounts);
+
+        for (OrderCommand command : chunk) {
+            Member member = members.get(command.getMemberId());
+            if (member == null) {
+                throw new IllegalArgumentException("존재하지 않는 회원입니다. id=" + command.getMemberId());
+            }
+            Delivery delivery = new Delivery();
+            delivery.setAddress(member.getAddress());
+
+            OrderItem[] orderItems = new TreeMap<>(command.getItemCounts()).entrySet().stream()
+                    .map(entry -> newOrderItem(items.get(entry.getKey()), entry.getValue()))
+                    .toArray(OrderItem[]::new);
+            orderRepository.save(Order.createOrder(member, delivery, orderItems));
+        }
+    }
+
+    /**
+     * 수량은 1 이상 (0이면 빈 주문상품, 음수면 ENTITY 모드에서 removeStock(-n)이 재고를 늘림)
+     */
+    private void checkCount(Long itemId, int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("주문 수량은 1 이상이어야 합니다. id=" + itemId + ", count=" + count);
+        }
+    }
+
+    private void checkCounts(Map<Long, Integer> itemCounts) {
+        if (itemCounts == null || itemCounts.isEmpty()) {
+            throw new IllegalArgumentException("주문할 상품이 없습니다.");
+        }
+        itemCounts.forEach((itemId, count) -> checkCount(itemId, count == null ? 0 : count));
+    }
+
+    private List<OrderItem> createOrderItems(SortedMap<Long, Integer> itemCounts) {
+        Map<Long, StockedItem> items = prepareItems(itemCounts);
+        List<OrderItem> orderItems = new ArrayList<>();
+        itemCounts.forEach((itemId, count) -> orderItems.add(newOrderItem(items.get(itemId), count)));
+        return orderItems;
+    }
+
+    /**
+     * 주문상품을 만들기 전에 상품별 합계 수량으로 재고 처리 (상품 id 오름차순)
+     * - ATOMIC : 가격만 IN 조회 + 합계 수량만큼 조건부 update, 상품은 프록시
+     * - RESERVATION : 상품 IN 조회 + 합계 수량만큼 예약
+     * - ENTITY : 상품 IN 조회 + 재고 확인 (차감은 주문상품 만들 때 엔티티에서)
+     * 재고가 부족하면 앞에서 처리한 상품까지 되돌리고 NotEnoughStockException => 실패한 주문은 재고를 바꾸지 않음
+     */
+    private Map<Long, StockedItem> prepareItems(SortedMap<Long, Integer> totalCounts) {
+        Map<Long, StockedItem> stocked = new HashMap<>();
+        if (stockMode == StockMode.ATOMIC) {
+            Map<Long, Integer> prices = itemRepository.findPrices(totalCounts.keySet());
+            checkAllExist(totalCounts.keySet(), prices.keySet());
+            for (Map.Entry<Long, Integer> entry : totalCounts.entrySet()) {
+                Long itemId = entry.getKey();
+                if (!itemRepository.decreaseStock(itemId, entry.getValue())) {
+                    // 같은 트랜잭션에서 이미 차감한 상품은 다시 더해둠
+                    stocked.keySet().forEach(decreased -> itemRepository.increaseStock(decreased, totalCounts.get(decreased)));
+                    throw new NotEnoughStockException("need more stock");
+                }
+                stocked.put(itemId, new StockedItem(itemRepository.getReference(itemId), prices.get(itemId)));
+            }
+            return stocked;
+        }
+
+        List<Item> items = itemRepository.findAllById(totalCounts.keySet());
+        checkAllExist(totalCounts.keySet(), items.stream().map(Item::getId).collect(Collectors.toSet()));
+        if (stockMode == StockMode.RESERVATION) {
+            stockReservationEngine.reserveAll(totalCounts);
+        } else {
+            for (Item item : items) {
+                if (item.getStockQuantity() < totalCounts.get(item.getId())) {
+                    throw new NotEnoughStockException("need more stock");
+                }
+            }
+        }
+        for (Item item : items) {
+            stocked.put(item.getId(), new StockedItem(item, item.getPrice()));
+        }
+        return stocked;
+    }
+
+    private OrderItem newOrderItem(StockedItem stocked, int count) {
+        switch (stockMode) {
+            case ATOMIC:
+                return OrderItem.createStockAppliedOrderItem(stocked.item(), stocked.price(), count);
+            case RESERVATION:
+                return OrderItem.createReservedOrderItem(stocked.item(), stocked.price(), count);
+            default:
+                return OrderItem.createOrderItem(stocked.item(), stocked.price(), count);
+        }
+    }
+
+    // 재고 처리가 끝난 상품과 주문 가격 (ATOMIC 모드에서는 item이 프록시)
+    private record StockedItem(Item item, int price) {
+    }
+
+    private void checkAllExist(Set<Long> requested, Set<Long> found) {
+        if (found.size() != requested.size()) {
+            Set<Long> missing = new TreeSet<>(requested);
+            missing.removeAll(found);
+            throw new IllegalArgumentException("존재하지 않는 상품입니다. id=" + missing);
+        }
+    }
+
+    private OrderItem createOrderItem(Long itemId, int count) {
+        switch (stockMode) {
+            case ATOMIC: {
+                // 조건부 update 한번으로 차감, Item 엔티티는 읽지 않음 (가격만 조회, 상품은 프록시로 연결)
+                Integer price = itemRepository.findPrice(itemId);
+                if (price == null) {
+                    throw new IllegalArgumentException("존재하지 않는 상품입니다. id=" + itemId);
+                }
+                if (!itemRepository.decreaseStock(itemId, count)) {
+                    throw new NotEnoughStockException("need more stock");
+                }
+                return OrderItem.createStockAppliedOrderItem(itemRepository.getReference(itemId), price, count);
+            }
+            case RESERVATION: {
+                // 재고 예약 모드 : 메모리 카운터에서 예약, item 테이블은 나중에 모아서 반영
+                Item item = itemRepository.findOne(itemId);
+                stockReservationEngine.reserve(itemId, count);
+                return OrderItem.createReservedOrderItem(item, item.getPrice(), count);
+            }
+            default: {
+                Item item = itemRepository.findOne(itemId);
+                return OrderItem.createOrderItem(item, item.getPrice(), count);
+            }
+        }
+    }
+
+    /**
+     * 주문 취소 메서드 (order와 같이 낙관적 락 충돌시 재시도)
      */
-    @Transactional
+    @Transactional(propagation = Propagation.SUPPORTS)
+    @Timed("jpashop.service")
     public void cancelOrder(Long orderId) {
+        optimisticLockRetry.execute("cancel", () -> {
+            cancel(orderId);
+            return null;
+        });
+    }
+
+    private void cancel(Long orderId) {
         Order order = orderRepository.findOne(orderId);
-        order.cancel();
+        switch (stockMode) {
+            case ATOMIC:
+                // 주문할 때와 같이 update 한번으로 재고 원복
+                order.markCanceled();
+                for (OrderItem orderItem : order.getOrderItems()) {
+                    itemRepository.increaseStock(orderItem.getItem().getId(), orderItem.getCount());
+                }
+                break;
+            case RESERVATION:
+                order.markCanceled();
+                for (OrderItem orderItem : order.getOrderItems()) {
+                    stockReservationEngine.release(orderItem);
+                }
+                break;
+            default:
+                order.cancel();
+        }
+
+        // 재고 원복된 상품들 카탈로그 캐시 무효화
+        for (OrderItem orderItem : order.getOrderItems()) {
+            itemCatalogCache.evictAfterCommit(orderItem.getItem().getId());
+        }
     }
 
     /**
      * 주문내역 검색할 때 사용
      */
+    @Timed("jpashop.service")
     public List<Order> findOrders(OrderSearch orderSearch) {
         return orderRepository.findAllByCriteria(orderSearch);
     }
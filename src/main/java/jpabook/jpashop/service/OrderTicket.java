@@ -0,0 +1,39 @@
+package jpabook.jpashop.service;
+
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * 비동기 주문 접수표 (OrderIntakeQueue)
+ * 접수되면 QUEUED, 저장되면 COMPLETED(주문 id), 실패하면 FAILED(사유)
+ */
+@Getter
+public class OrderTicket {
+
+    public enum Status { QUEUED, COMPLETED, FAILED }
+
+    private final String id;
+    private final Long memberId;
+    private final Map<Long, Integer> itemCounts;
+
+    private volatile Status status = Status.QUEUED;
+    private volatile Long orderId;
+    private volatile String message;
+
+    OrderTicket(String id, Long memberId, Map<Long, Integer> itemCounts) {
+        this.id = id;
+        this.memberId = memberId;
+        this.itemCounts = itemCounts;
+    }
+
+    void complete(Long orderId) {
+        this.orderId = orderId;
+        this.status = Status.COMPLETED;
+    }
+
+    void fail(String message) {
+        this.message = message;
+        this.status = Status.FAILED;
+    }
+}
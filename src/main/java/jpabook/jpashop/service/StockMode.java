@@ -0,0 +1,11 @@
+package jpabook.jpashop.service;
+
+// 재고 처리 방식 (jpashop.stock.mode)
+// ENTITY : Item 엔티티 재고를 바로 변경 (변경감지)
+// RESERVATION : 메모리 카운터로 예약하고 item 테이블에는 모아서 반영 (StockReservationEngine) - 인스턴스 하나에서만 (StockReservationLease)
+// ATOMIC : Item을 읽지 않고 조건부 update 한번으로 차감 (재고 >= 수량일 때만)
+public enum StockMode {
+
+    ENTITY, RESERVATION, ATOMIC
+
+}
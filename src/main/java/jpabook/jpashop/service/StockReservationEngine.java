@@ -0,0 +1,231 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.repository.ItemRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * 재고 예약 엔진 (jpashop.stock.mode=RESERVATION 일 때 사용)
+ * 같은 상품에 주문이 몰리면 item row 하나에 update가 줄을 서게 됨 (혹은 변경감지끼리 덮어써서 재고가 틀어짐)
+ * => 상품별 주문 가능 재고를 메모리 카운터(CAS)로 예약하고, item 테이블에는 주기적으로 모아서 한번에 반영
+ *
+ * 서버가 죽어도 안전한 이유
+ * - 주문/취소의 재고 변화량은 주문상품(order_item.stock_pending)에 주문과 같은 트랜잭션으로 저장됨
+ * - 반영할 때는 item 재고 변경 + stock_pending 비우기를 한 트랜잭션으로 처리
+ * - 카운터는 언제든 (item 재고 + 반영 안된 변화량 합계)로 다시 계산할 수 있음 => 시작할 때 남은 변화량부터 반영
+ *
+ * 카운터가 인스턴스 메모리에 있으니 인스턴스 하나에서만 실행 (StockReservationLease로 강제)
+ * 여러 인스턴스로 늘려야 하면 ATOMIC 모드 사용
+ */
+@Slf4j
+@Component
+public class StockReservationEngine {
+
+    // 한 트랜잭션에서 반영할 최대 주문상품 수
+    private static final int FLUSH_BATCH_SIZE = 1000;
+
+    private final ItemRepository itemRepository;
+    private final ItemCatalogCache itemCatalogCache;
+    private final TransactionTemplate transactionTemplate;
+    private final StockReservationLease lease;
+    private final boolean enabled;
+
+    // 상품 id -> 주문 가능 재고
+    private final Map<Long, AtomicInteger> available = new ConcurrentHashMap<>();
+
+    public StockReservationEngine(ItemRepository itemRepository,
+                                  ItemCatalogCache itemCatalogCache,
+                                  TransactionTemplate transactionTemplate,
+                                  StockReservationLease lease,
+                                  @Value("${jpashop.stock.mode:ENTITY}") StockMode stockMode) {
+        this.itemRepository = itemRepository;
+        this.itemCatalogCache = itemCatalogCache;
+        this.transactionTemplate = transactionTemplate;
+        this.lease = lease;
+        this.enabled = stockMode == StockMode.RESERVATION;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 재고 예약 (부족하면 NotEnoughStockException)
+     * 주문 트랜잭션이 롤백되면 예약도 자동으로 되돌림
+     */
+    public void reserve(Long itemId, int count) {
+        reserveAll(Map.of(itemId, count));
+    }
+
+    /**
+     * 여러 상품을 한번에 예약 (하나라도 부족하면 앞에서 예약한 것까지 바로 되돌리고 NotEnoughStockException)
+     * => 실패해도 카운터가 바뀌지 않으니 트랜잭션을 롤백하지 않고 계속 써도 됨 (OrderIntakeQueue 묶음 저장)
+     * 주문 트랜잭션이 롤백되면 예약도 자동으로 되돌림
+     * @param itemCounts 상품 id -> 수량
+     */
+    public void reserveAll(Map<Long, Integer> itemCounts) {
+        lease.checkHeld();
+        Map<AtomicInteger, Integer> reserved = new LinkedHashMap<>();
+        try {
+            itemCounts.forEach((itemId, count) -> {
+                AtomicInteger stock = available.computeIfAbsent(itemId, this::loadAvailable);
+                decrease(stock, count);
+                reserved.put(stock, count);
+            });
+        } catch (RuntimeException e) {
+            reserved.forEach(AtomicInteger::addAndGet);
+            throw e;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        reserved.forEach(AtomicInteger::addAndGet);
+                    }
+                }
+            });
+        }
+    }
+
+    private void decrease(AtomicInteger stock, int count) {
+        while (true) {
+            int current = stock.get();
+            if (current < count) {
+                throw new NotEnoughStockException("need more stock");
+            }
+            if (stock.compareAndSet(current, current - count)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 주문 취소시 재고 반환
+     * 변화량(+수량)은 지금 트랜잭션에 기록하고, 카운터는 커밋된 후에 돌려줌
+     */
+    public void release(OrderItem orderItem) {
+        Long itemId = orderItem.getItem().getId();
+        int count = orderItem.getCount();
+        itemRepository.addPendingStock(orderItem.getId(), count);
+
+        afterCommit(() -> {
+            AtomicInteger stock = available.get(itemId);
+            if (stock != null) {
+                stock.addAndGet(count);
+            }
+        });
+    }
+
+    /**
+     * 관리자가 재고를 직접 수정한 경우 커밋 후에 카운터에 차이만큼 더함
+     * 카운터를 버리고 DB에서 다시 읽으면 아직 커밋 안된 예약(stock_pending이 아직 없음)이 빠져서 더 팔게 됨
+     * => 다른 트랜잭션의 예약은 그대로 두고 변경분만 반영 (수정 중에 반영(flush)이 끼어들면 버전 충돌로 수정이 롤백됨)
+     * @param delta 수정 후 재고 - 수정 전 재고
+     */
+    public void adjustAfterCommit(Long itemId, int delta) {
+        if (delta == 0) {
+            return;
+        }
+        afterCommit(() -> {
+            AtomicInteger stock = available.get(itemId);
+            if (stock != null) {
+                stock.addAndGet(delta);
+            }
+        });
+    }
+
+    /**
+     * 시작할 때 (이전에 반영 못하고 죽은 변화량까지) 먼저 반영
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcile() {
+        int applied = flush();
+        if (applied > 0) {
+            log.info("stock reconcile: applied {} pending order items", applied);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${jpashop.stock.flush-interval:1000}")
+    public void scheduledFlush() {
+        if (enabled) {
+            flush();
+        }
+    }
+
+    /**
+     * 반영 안된 재고 변화량을 item 테이블에 반영
+     * @return 반영한 주문상품 수
+     */
+    public int flush() {
+        int total = 0;
+        int applied;
+        do {
+            applied = transactionTemplate.execute(status -> flushBatch());
+            total += applied;
+        } while (applied == FLUSH_BATCH_SIZE);
+        return total;
+    }
+
+    private int flushBatch() {
+        List<Object[]> pending = itemRepository.findPendingStockForUpdate(FLUSH_BATCH_SIZE);
+        if (pending.isEmpty()) {
+            return 0;
+        }
+
+        // 상품별로 합쳐서 상품 id 순서대로 반영 (락 순서 고정)
+        Map<Long, Integer> deltas = pending.stream()
+                .collect(Collectors.groupingBy(row -> (Long) row[1], TreeMap::new,
+                        Collectors.summingInt(row -> (Integer) row[2])));
+        deltas.forEach((itemId, delta) -> {
+            if (delta != 0) {
+                itemRepository.applyStockDelta(itemId, delta);
+                itemCatalogCache.evictAfterCommit(itemId);
+            }
+        });
+
+        itemRepository.clearPendingStock(pending.stream()
+                .map(row -> (Long) row[0])
+                .collect(Collectors.toList()));
+        return pending.size();
+    }
+
+    private AtomicInteger loadAvailable(Long itemId) {
+        Integer stock = itemRepository.findAvailableStock(itemId);
+        if (stock == null) {
+            throw new IllegalArgumentException("존재하지 않는 상품입니다. id=" + itemId);
+        }
+        return new AtomicInteger(stock);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,122 @@
+package jpabook.jpashop.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * 재고 예약 모드(RESERVATION)는 인스턴스 하나에서만 실행 (StockReservationEngine)
+ * 카운터는 인스턴스 메모리에 있고 DB 재고로 시작하기 때문에, 인스턴스가 둘이면 각자 전체 재고를 팔게 됨
+ * => DB의 stock_reservation_lease 한 줄을 점유한 인스턴스만 예약 가능
+ *
+ * - 시작할 때 점유 (다른 인스턴스가 갱신 중이면 lease-timeout까지 기다렸다가 안되면 시작 실패)
+ * - renew-interval마다 갱신, lease-timeout 동안 갱신이 없으면 다른 인스턴스가 가져갈 수 있음 (죽은 인스턴스)
+ * - 정상 종료하면 바로 놓아줌 => 배포는 이전 인스턴스를 내린 뒤 새 인스턴스를 올리는 방식으로 (Recreate)
+ * - 갱신에 실패하면(다른 인스턴스가 가져감) 그 뒤로는 예약하지 않음 (IllegalStateException)
+ */
+@Slf4j
+@Component
+public class StockReservationLease {
+
+    private static final int LEASE_ID = 1;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final Duration timeout;
+    private final Duration renewInterval;
+    private final String owner = UUID.randomUUID().toString();
+
+    private volatile boolean held;
+    private volatile long renewedMillis;
+
+    public StockReservationLease(JdbcTemplate jdbcTemplate,
+                                 @Value("${jpashop.stock.mode:ENTITY}") StockMode stockMode,
+                                 @Value("${jpashop.stock.lease-timeout:30s}") Duration timeout,
+                                 @Value("${jpashop.stock.lease-renew-interval:5s}") Duration renewInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = stockMode == StockMode.RESERVATION;
+        this.timeout = timeout;
+        this.renewInterval = renewInterval;
+    }
+
+    @PostConstruct
+    void acquire() throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        jdbcTemplate.execute("create table if not exists stock_reservation_lease" +
+                " (id int primary key, owner varchar(36) not null, renewed_millis bigint not null)");
+
+        long deadline = System.currentTimeMillis() + timeout.toMillis() + renewInterval.toMillis();
+        while (!tryAcquire()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("재고 예약 모드(RESERVATION)는 인스턴스 하나에서만 실행할 수 있습니다. 다른 인스턴스가 실행 중입니다.");
+            }
+            log.info("stock reservation lease held by another instance, waiting");
+            Thread.sleep(renewInterval.toMillis());
+        }
+        renewedMillis = System.currentTimeMillis();
+        held = true;
+        log.info("stock reservation lease acquired: {}", owner);
+    }
+
+    private boolean tryAcquire() {
+        long now = System.currentTimeMillis();
+        try {
+            jdbcTemplate.update("insert into stock_reservation_lease (id, owner, renewed_millis) values (?, ?, ?)", LEASE_ID, owner, now);
+            return true;
+        } catch (DuplicateKeyException e) {
+            // 이미 있으면 내 것이거나 만료된 것만 가져옴
+            return jdbcTemplate.update("update stock_reservation_lease set owner = ?, renewed_millis = ?" +
+                    " where id = ? and (owner = ? or renewed_millis < ?)", owner, now, LEASE_ID, owner, now - timeout.toMillis()) == 1;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${jpashop.stock.lease-renew-interval:5s}")
+    public void renew() {
+        if (!held) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            if (jdbcTemplate.update("update stock_reservation_lease set renewed_millis = ? where id = ? and owner = ?",
+                    now, LEASE_ID, owner) == 0) {
+                held = false;
+                log.error("stock reservation lease lost to another instance, reservations disabled");
+            } else {
+                renewedMillis = now;
+            }
+        } catch (DataAccessException e) {
+            // 일시적인 DB 오류 - lease-timeout 안에 다시 갱신되면 그대로 유지 (checkHeld 참고)
+            log.warn("stock reservation lease renew failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 점유하지 않은 인스턴스에서 예약하려고 하면 IllegalStateException
+     * lease-timeout 동안 갱신을 못했으면 다른 인스턴스가 가져갔을 수 있으니 점유하지 않은 것으로 봄
+     */
+    public void checkHeld() {
+        if (!held || System.currentTimeMillis() - renewedMillis > timeout.toMillis()) {
+            throw new IllegalStateException("재고 예약 lease가 없는 인스턴스입니다. (RESERVATION 모드는 인스턴스 하나에서만)");
+        }
+    }
+
+    @PreDestroy
+    void release() {
+        if (!held) {
+            return;
+        }
+        held = false;
+        jdbcTemplate.update("delete from stock_reservation_lease where id = ? and owner = ?", LEASE_ID, owner);
+    }
+}
@@ -0,0 +1,90 @@
+package jpabook.jpashop;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Order;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:dataset",
+        "jpashop.dataset.members=50",
+        "jpashop.dataset.books=5",
+        "jpashop.dataset.albums=3",
+        "jpashop.dataset.movies=2",
+        "jpashop.dataset.workers=3",
+        "jpashop.dataset.chunk-size=7"
+})
+@ActiveProfiles("dataset")
+@Transactional
+class DatasetGeneratorTest {
+
+    @Autowired DatasetGenerator datasetGenerator;
+    @Autowired EntityManager em;
+
+    @Test
+    public void 설정한_크기대로_생성() throws Exception {
+        List<DatasetGenerator.MemberPlan> plans = IntStream.range(0, 50).mapToObj(datasetGenerator::memberPlan).toList();
+        long orders = plans.stream().mapToLong(plan -> plan.orders().size()).sum();
+        long quantity = plans.stream()
+                .flatMap(plan -> plan.orders().stream())
+                .flatMap(order -> order.lines().stream())
+                .mapToLong(DatasetGenerator.LinePlan::count)
+                .sum();
+
+        assertEquals(50L, count("select count(m) from Member m"));
+        assertEquals(5L, count("select count(i) from Book i"));
+        assertEquals(3L, count("select count(i) from Album i"));
+        assertEquals(2L, count("select count(i) from Movie i"));
+        assertEquals(orders, count("select count(o) from Order o"));
+        assertEquals(quantity, count("select sum(oi.count) from OrderItem oi"), "재고는 그대로, 주문 수량만 계획대로");
+        assertInitDbSkipped();
+    }
+
+    @Test
+    public void 회원_번호와_seed만으로_같은_주문() throws Exception {
+        DatasetGenerator.MemberPlan plan = datasetGenerator.memberPlan(7);
+        assertEquals(plan.orders(), datasetGenerator.memberPlan(7).orders());
+
+        List<Order> orders = em.createQuery(
+                        "select o from Order o join o.member m where m.name = :name", Order.class)
+                .setParameter("name", plan.name())
+                .getResultList().stream()
+                .sorted(Comparator.comparing(Order::getOrderDate))
+                .toList();
+        List<DatasetGenerator.OrderPlan> planned = plan.orders().stream()
+                .sorted(Comparator.comparing(DatasetGenerator.OrderPlan::orderDate))
+                .toList();
+
+        assertEquals(planned.size(), orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            assertEquals(planned.get(i).orderDate(), orders.get(i).getOrderDate());
+            assertEquals(planned.get(i).status(), orders.get(i).getStatus());
+            assertEquals(planned.get(i).lines().size(), orders.get(i).getOrderItems().size());
+            assertEquals(planned.get(i).lines().stream()
+                            .map(line -> datasetGenerator.itemPlan(line.item()).name())
+                            .collect(Collectors.toSet()),
+                    orders.get(i).getOrderItems().stream()
+                            .map(orderItem -> orderItem.getItem().getName())
+                            .collect(Collectors.toSet()),
+                    "상품 번호대로 저장한 상품이 연결되어야 한다.");
+        }
+    }
+
+    private void assertInitDbSkipped() {
+        assertEquals(0L, count("select count(m) from Member m where m.name in ('userA', 'userB')"));
+    }
+
+    private long count(String jpql) {
+        return em.createQuery(jpql, Long.class).getSingleResult();
+    }
+}
@@ -0,0 +1,123 @@
+package jpabook.jpashop;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 콜드 스타트 벤치마크 : 프로세스 시작 ~ 첫 요청(GET /api/v4/simple-orders) 200 응답까지 걸린 시간
+ * gradle cdsArchive benchmark --tests '*StartupBenchmark' -Dbenchmark.runs=5
+ * - runs : 조합마다 실행 횟수
+ * 조합 : 기본 / fast-start 프로파일 x CDS 아카이브 없음 / 있음 (build/cds, 파드에서 실행하는 것과 같은 java -jar)
+ */
+@Tag("benchmark")
+class StartupBenchmark {
+
+    private static final Path CDS_DIR = Path.of("build", "cds");
+    private static final Duration TIMEOUT = Duration.ofMinutes(2);
+
+    int runs = Integer.getInteger("benchmark.runs", 5);
+
+    HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofMillis(200))
+            .build();
+
+    @Test
+    public void 첫_요청까지_시간() throws Exception {
+        Path archive = CDS_DIR.resolve("application.jsa");
+        Path jar;
+        try (Stream<Path> files = Files.list(CDS_DIR)) {
+            jar = files.filter(file -> file.toString().endsWith(".jar")).findFirst().orElse(null);
+        } catch (IOException e) {
+            jar = null;
+        }
+        assumeTrue(jar != null && Files.exists(archive), "gradle cdsArchive 먼저 실행");
+
+        for (String profile : List.of("default", "fast-start")) {
+            System.out.println(run(jar, profile, null));
+            System.out.println(run(jar, profile, archive));
+        }
+    }
+
+    private String run(Path jar, String profile, Path archive) throws Exception {
+        long[] millis = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            millis[i] = timeToFirstRequest(jar, profile, archive);
+        }
+        Arrays.sort(millis);
+        return String.format("%-11s %-7s runs=%d, time to first request: median=%dms, min=%dms, max=%dms",
+                profile, archive == null ? "" : "+ CDS", runs, millis[runs / 2], millis[0], millis[runs - 1]);
+    }
+
+    private long timeToFirstRequest(Path jar, String profile, Path archive) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        if (archive != null) {
+            command.add("-XX:SharedArchiveFile=" + archive.getFileName());
+            command.add("-Xlog:cds=off");
+        }
+        command.addAll(List.of("-jar", jar.getFileName().toString(),
+                "--spring.profiles.active=" + profile,
+                "--server.port=" + port,
+                "--spring.datasource.url=jdbc:h2:mem:startup",
+                "--logging.level.org.hibernate.SQL=info",
+                "--logging.level.org.hibernate.type=info"));
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v4/simple-orders"))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+
+        long start = System.nanoTime();
+        // 아카이브에는 학습 실행 때의 클래스패스(상대 경로)가 기록됨 => 같은 디렉토리에서 실행
+        Process process = new ProcessBuilder(command)
+                .directory(jar.getParent().toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            while (System.nanoTime() - start < TIMEOUT.toNanos()) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("application exited: " + process.exitValue());
+                }
+                try {
+                    if (httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return (System.nanoTime() - start) / 1_000_000;
+                    }
+                } catch (IOException e) {
+                    // 아직 포트가 안 열림
+                }
+                Thread.sleep(10);
+            }
+            throw new IllegalStateException("no response within " + TIMEOUT);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
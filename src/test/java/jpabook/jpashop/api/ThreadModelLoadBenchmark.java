@@ -0,0 +1,178 @@
+package jpabook.jpashop.api;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+/**
+ * 요청 스레드 모델 부하 테스트 : 플랫폼 스레드(Tomcat 스레드 풀) vs 가상 스레드(spring.threads.virtual.enabled)
+ * gradle benchmark --tests '*ThreadModelLoadBenchmark*' -Dbenchmark.clients=400 -Dbenchmark.tomcat-threads=50 -Dbenchmark.pool-size=10
+ * - clients : 동시에 요청하는 클라이언트 수
+ * - requests : 클라이언트당 요청 수 (GET /api/v4/simple-orders, POST /order 각각)
+ * - tomcat-threads : 플랫폼 스레드 모드의 요청 스레드 수 (server.tomcat.threads.max)
+ * - pool-size : 커넥션 풀 크기 (둘 다 같은 값)
+ * - url : DB (기본은 H2 메모리 - 쿼리가 빨라서 풀 대기가 짧음, 실제 DB 지연을 보려면 운영과 같은 DB로)
+ *
+ * 결과 : 처리량, 지연시간(p50/p99/max), 실패 수, 최대 스레드 수, pinning 횟수(가상 스레드 모드만)
+ */
+@Tag("benchmark")
+abstract class ThreadModelLoadBenchmark {
+
+    private static final int ITEMS = 100;
+
+    @LocalServerPort int port;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired MeterRegistry meterRegistry;
+
+    int clients = Integer.getInteger("benchmark.clients", 200);
+    int requestsPerClient = Integer.getInteger("benchmark.requests", 20);
+
+    HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+
+    @SpringBootTest(webEnvironment = RANDOM_PORT, properties = {
+            "spring.datasource.url=${benchmark.url:jdbc:h2:mem:platform}",
+            "server.tomcat.threads.max=${benchmark.tomcat-threads:50}",
+            "spring.datasource.hikari.maximum-pool-size=${benchmark.pool-size:10}",
+            "logging.level.org.hibernate.SQL=info",
+            "logging.level.org.hibernate.type=info"
+    })
+    static class PlatformThreads extends ThreadModelLoadBenchmark {
+    }
+
+    @SpringBootTest(webEnvironment = RANDOM_PORT, properties = {
+            "spring.datasource.url=${benchmark.url:jdbc:h2:mem:virtual}",
+            "spring.threads.virtual.enabled=true",
+            "server.tomcat.threads.max=${benchmark.tomcat-threads:50}",
+            "spring.datasource.hikari.maximum-pool-size=${benchmark.pool-size:10}",
+            "logging.level.org.hibernate.SQL=info",
+            "logging.level.org.hibernate.type=info"
+    })
+    static class VirtualThreads extends ThreadModelLoadBenchmark {
+    }
+
+    @Test
+    public void 조회_주문_부하() throws Exception {
+        Long memberId = createMember();
+        List<Long> itemIds = createBooks();
+        HttpRequest listRequest = HttpRequest.newBuilder(uri("/api/v4/simple-orders")).GET().build();
+        Supplier<HttpRequest> list = () -> listRequest;
+        // 상품을 나눠서 주문 (한 상품에 몰리면 낙관적 락 충돌 재시도가 결과를 좌우함)
+        Supplier<HttpRequest> order = () -> HttpRequest.newBuilder(uri("/order"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString("memberId=" + memberId
+                        + "&itemId=" + itemIds.get(ThreadLocalRandom.current().nextInt(itemIds.size())) + "&count=1"))
+                .build();
+
+        run("warm-up", list, Math.min(clients, 20));
+
+        System.out.println(run("GET /api/v4/simple-orders", list, clients));
+        System.out.println(run("POST /order", order, clients));
+    }
+
+    private String run(String name, Supplier<HttpRequest> request, int clients) throws Exception {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        threadMXBean.resetPeakThreadCount();
+        double pinnedBefore = pinned();
+
+        long[] latencies = new long[clients * requestsPerClient];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+
+        List<Future<?>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                futures.add(executor.submit(() -> {
+                    for (int n = 0; n < requestsPerClient; n++) {
+                        long requestStart = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = httpClient.send(request.get(), HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 400) {
+                                failed.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            failed.incrementAndGet();
+                        }
+                        latencies[next.getAndIncrement()] = System.nanoTime() - requestStart;
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        Arrays.sort(latencies);
+        return String.format("%-15s %-26s clients=%d, requests=%d, %.0f req/s, p50=%.1fms, p99=%.1fms, max=%.1fms, failed=%d, peak threads=%d, pinned=%.0f",
+                getClass().getSimpleName(), name, clients, latencies.length, latencies.length / seconds,
+                percentile(latencies, 0.50), percentile(latencies, 0.99), latencies[latencies.length - 1] / 1_000_000.0,
+                failed.get(), threadMXBean.getPeakThreadCount(), pinned() - pinnedBefore);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1)] / 1_000_000.0;
+    }
+
+    private double pinned() {
+        return meterRegistry.find("jpashop.virtual.pinned").timers().stream()
+                .mapToDouble(timer -> timer.count())
+                .sum();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private Long createMember() {
+        Member member = new Member();
+        member.setName("load-" + UUID.randomUUID());
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        return memberService.join(member);
+    }
+
+    private List<Long> createBooks() {
+        List<Long> itemIds = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            Book book = new Book();
+            book.setName("load book " + i);
+            book.setPrice(10000);
+            book.setStockQuantity(Integer.MAX_VALUE / 2);
+            itemService.saveItem(book);
+            itemIds.add(book.getId());
+        }
+        return itemIds;
+    }
+}
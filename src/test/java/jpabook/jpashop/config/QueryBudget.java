@@ -0,0 +1,38 @@
+package jpabook.jpashop.config;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 테스트 메서드 본문(@BeforeEach 제외)에서 실행할 수 있는 SQL 수 상한
+ * 넘거나 N+1 의심 쿼리가 있으면 테스트 실패 (실행된 쿼리 모양을 메시지로)
+ *
+ * <pre>
+ * &#64;Test
+ * &#64;QueryBudget(1)
+ * public void 주문목록() { ... }
+ * </pre>
+ *
+ * Hibernate 쿼리가 테스트와 같은 스레드에서 실행될 때만 셈 (MockMvc, 서비스 직접 호출)
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(QueryBudgetExtension.class)
+public @interface QueryBudget {
+
+    /**
+     * 최대 SQL 수
+     */
+    int value();
+
+    /**
+     * false면 같은 모양의 select가 nPlusOneThreshold번 이상일 때 실패
+     */
+    boolean allowNPlusOne() default false;
+
+    int nPlusOneThreshold() default 5;
+}
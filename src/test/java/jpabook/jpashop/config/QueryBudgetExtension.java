@@ -0,0 +1,56 @@
+package jpabook.jpashop.config;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.commons.support.AnnotationSupport;
+import org.opentest4j.AssertionFailedError;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * @QueryBudget 처리 - 테스트 실행 전에 QueryCounter 범위를 열고, 끝나면 닫으면서 검사
+ */
+public class QueryBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(QueryBudgetExtension.class);
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        budget(context).ifPresent(budget -> context.getStore(NAMESPACE)
+                .put(context.getUniqueId(), QueryCounter.open(context.getDisplayName(), budget.nPlusOneThreshold())));
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        QueryCounter.Scope scope = context.getStore(NAMESPACE).remove(context.getUniqueId(), QueryCounter.Scope.class);
+        if (scope == null) {
+            return;
+        }
+        scope.close();
+        QueryBudget budget = budget(context).orElseThrow();
+
+        if (scope.getCount() > budget.value()) {
+            throw new AssertionFailedError(String.format("SQL %d개 실행, 허용 %d개%s",
+                    scope.getCount(), budget.value(), describe(scope.getNPlusOneSuspects())));
+        }
+        if (!budget.allowNPlusOne() && !scope.getNPlusOneSuspects().isEmpty()) {
+            throw new AssertionFailedError("N+1 의심 쿼리" + describe(scope.getNPlusOneSuspects()));
+        }
+    }
+
+    private static Optional<QueryBudget> budget(ExtensionContext context) {
+        return AnnotationSupport.findAnnotation(context.getElement(), QueryBudget.class);
+    }
+
+    private static String describe(Map<String, Integer> suspects) {
+        if (suspects.isEmpty()) {
+            return "";
+        }
+        return suspects.entrySet().stream()
+                .map(entry -> "\n  " + entry.getValue() + "회 : " + entry.getKey())
+                .collect(Collectors.joining("", "\n같은 모양으로 반복된 쿼리:", ""));
+    }
+}
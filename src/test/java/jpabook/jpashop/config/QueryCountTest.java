@@ -0,0 +1,90 @@
+package jpabook.jpashop.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:querycount")
+@AutoConfigureMockMvc
+class QueryCountTest {
+
+    @Autowired MockMvc mockMvc;
+    @Autowired MeterRegistry meterRegistry;
+    @Autowired OrderService orderService;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+
+    @BeforeEach
+    public void 회원마다_주문() {
+        Book book = new Book();
+        book.setName("시골 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(100);
+        itemService.saveItem(book);
+
+        for (int i = 0; i < 6; i++) {
+            Member member = new Member();
+            member.setName("query-" + UUID.randomUUID());
+            member.setAddress(new Address("서울", "강가", "123-123"));
+            orderService.order(memberService.join(member), book.getId(), 1);
+        }
+    }
+
+    @Test
+    @QueryBudget(1)
+    public void DTO로_바로_조회하면_쿼리_한번() throws Exception {
+        mockMvc.perform(get("/api/v4/simple-orders"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(QueryCountFilter.QUERY_COUNT_HEADER, "1"))
+                .andExpect(header().doesNotExist(QueryCountFilter.N_PLUS_ONE_HEADER));
+    }
+
+    @Test
+    @QueryBudget(value = 100, allowNPlusOne = true)
+    public void 엔티티를_DTO로_바꾸면서_지연로딩하면_N플러스1_의심() throws Exception {
+        double before = nPlusOneCount();
+
+        MvcResult result = mockMvc.perform(get("/api/v2/simple-orders"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(QueryCountFilter.N_PLUS_ONE_HEADER))
+                .andReturn();
+
+        assertTrue(Integer.parseInt(result.getResponse().getHeader(QueryCountFilter.QUERY_COUNT_HEADER)) > 6,
+                "주문마다 배송 조회가 나가야 한다.");
+        assertTrue(nPlusOneCount() > before);
+    }
+
+    @Test
+    public void 서비스_메서드별_쿼리_수() throws Exception {
+        orderService.findOrders(new OrderSearch());
+
+        assertNotNull(meterRegistry.find("jpashop.sql.statements")
+                .tags("scope", "method", "name", "OrderService.findOrders")
+                .summary());
+    }
+
+    private double nPlusOneCount() {
+        return meterRegistry.find("jpashop.sql.n_plus_one").counters().stream()
+                .mapToDouble(counter -> counter.count())
+                .sum();
+    }
+}
@@ -0,0 +1,183 @@
+package jpabook.jpashop.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.ItemSnapshot;
+import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderIntakeQueue;
+import jpabook.jpashop.service.OrderTicket;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * H2 두개 (rw_primary, rw_replica) - 동기화와 지연 측정은 테스트에서 직접 호출 (주기 실행은 1시간으로 미룸)
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:rw_primary",
+        "jpashop.datasource.replica.url=jdbc:h2:mem:rw_replica",
+        "jpashop.datasource.replica.username=sa",
+        "jpashop.datasource.replica.max-lag=500ms",
+        "jpashop.datasource.replica.heartbeat-interval=1h",
+        "jpashop.datasource.replica.h2-sync=true",
+        "jpashop.datasource.replica.h2-sync-interval=1h"
+})
+class ReadWriteRoutingTest {
+
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired OrderIntakeQueue orderIntakeQueue;
+    @Autowired ReplicaLagMonitor replicaLagMonitor;
+    @Autowired H2ReplicaSync h2ReplicaSync;
+    @Autowired MeterRegistry meterRegistry;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired EntityManager em;
+
+    @BeforeEach
+    public void 동기화() {
+        replicaLagMonitor.heartbeat();
+        h2ReplicaSync.sync();
+        replicaLagMonitor.check();
+    }
+
+    @Test
+    public void 조회는_replica_변경은_primary() throws Exception {
+        assertTrue(replicaLagMonitor.isAvailable());
+        double replicaReads = route("replica", true);
+
+        assertEquals("RW_REPLICA", database(true));
+        assertEquals("RW_PRIMARY", database(false));
+        assertEquals(replicaReads + 1, route("replica", true));
+    }
+
+    @Test
+    public void 가입한_회원은_동기화된_뒤에_replica에서_조회() throws Exception {
+        Member member = new Member();
+        member.setName("replica-" + UUID.randomUUID());
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        memberService.join(member);
+
+        // findOne은 join이 커밋하면서 2차 캐시에 넣은 회원을 읽으니까 목록 조회(JPQL)로 확인
+        assertFalse(memberNames().contains(member.getName()), "아직 replica에 없음");
+
+        h2ReplicaSync.sync();
+        assertTrue(memberNames().contains(member.getName()));
+    }
+
+    @Test
+    public void 수정한_상품은_replica가_뒤처져도_새_값으로_캐시() throws Exception {
+        //Given - replica에도 있고 카탈로그 캐시에도 들어간 상품
+        Book book = new Book();
+        book.setName("replica-book-" + UUID.randomUUID());
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        itemService.saveItem(book);
+        h2ReplicaSync.sync();
+        assertEquals(10, itemService.findOne(book.getId()).getStockQuantity());
+
+        //When - 수정 (replica는 동기화하지 않음)
+        itemService.updateItem(book.getId(), book.getName(), 20000, 7);
+        em.getEntityManagerFactory().getCache().evict(Item.class, book.getId());
+
+        //Then - 무효화된 뒤 다시 채우는 조회는 primary에서
+        ItemSnapshot item = itemService.findOne(book.getId());
+        assertEquals(7, item.getStockQuantity(), "replica의 이전 재고가 캐시에 들어가면 안된다.");
+        assertEquals(20000, item.getPrice());
+        ItemSnapshot listed = itemService.findAll().stream()
+                .filter(snapshot -> snapshot.getId().equals(book.getId()))
+                .findFirst().orElseThrow();
+        assertEquals(7, listed.getStockQuantity());
+    }
+
+    @Test
+    public void replica에서_읽은_엔티티는_2차_캐시에_넣지_않음() throws Exception {
+        //Given - replica에는 재고 10, primary에서만 7로 수정
+        Book book = new Book();
+        book.setName("replica-book-" + UUID.randomUUID());
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        itemService.saveItem(book);
+        h2ReplicaSync.sync();
+        itemService.updateItem(book.getId(), book.getName(), 10000, 7);
+        Cache cache = em.getEntityManagerFactory().getCache();
+        cache.evict(Item.class, book.getId());
+
+        //When - readOnly 트랜잭션 (replica)
+        int replicaStock = inTransaction(true, () -> em.find(Item.class, book.getId()).getStockQuantity());
+
+        //Then
+        assertEquals(10, replicaStock, "replica는 아직 이전 값");
+        assertFalse(cache.contains(Item.class, book.getId()), "replica에서 읽은 엔티티는 2차 캐시에 넣지 않는다.");
+        assertEquals(7, inTransaction(false, () -> em.find(Item.class, book.getId()).getStockQuantity()),
+                "쓰기 트랜잭션의 em.find는 primary 값");
+        assertTrue(cache.contains(Item.class, book.getId()), "primary에서 읽으면 2차 캐시에 넣는다.");
+    }
+
+    @Test
+    public void 방금_가입한_회원과_등록한_상품으로_주문_접수() throws Exception {
+        Member member = new Member();
+        member.setName("replica-" + UUID.randomUUID());
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        Long memberId = memberService.join(member);
+        Book book = new Book();
+        book.setName("replica-book-" + UUID.randomUUID());
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        itemService.saveItem(book);
+
+        // replica에는 아직 없지만 접수 검증은 primary에서
+        OrderTicket ticket = orderIntakeQueue.submit(memberId, Map.of(book.getId(), 1));
+        assertNotNull(ticket.getId());
+    }
+
+    @Test
+    public void 지연이_max_lag를_넘으면_primary에서_조회() throws Exception {
+        Thread.sleep(600);
+        replicaLagMonitor.check();
+        double fallbacks = route("primary", true);
+
+        assertFalse(replicaLagMonitor.isAvailable());
+        assertEquals("RW_PRIMARY", database(true));
+        assertEquals(fallbacks + 1, route("primary", true));
+
+        // 따라잡으면 다시 replica
+        동기화();
+        assertEquals("RW_REPLICA", database(true));
+    }
+
+    private List<String> memberNames() {
+        return memberService.findMembers().stream().map(Member::getName).toList();
+    }
+
+    private String database(boolean readOnly) {
+        return inTransaction(readOnly, () -> (String) em.createNativeQuery("select database()").getSingleResult());
+    }
+
+    private <T> T inTransaction(boolean readOnly, Supplier<T> action) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status -> action.get());
+    }
+
+    private double route(String pool, boolean readOnly) {
+        return meterRegistry.get("jpashop.datasource.route")
+                .tags("pool", pool, "read_only", String.valueOf(readOnly))
+                .counter().count();
+    }
+}
@@ -0,0 +1,89 @@
+package jpabook.jpashop.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.exception.DuplicateMemberException;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:metrics")
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+class ServiceMetricsTest {
+
+    @Autowired MeterRegistry meterRegistry;
+    @Autowired OrderService orderService;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired MockMvc mockMvc;
+
+    @Test
+    public void 성공과_실패를_예외별로() throws Exception {
+        Member member = createMember("metrics-" + UUID.randomUUID());
+        Book book = createBook(1);
+        double succeeded = count("order", "none");
+        double notEnoughStock = count("order", "NotEnoughStockException");
+
+        orderService.order(member.getId(), book.getId(), 1);
+        assertThrows(NotEnoughStockException.class, () -> orderService.order(member.getId(), book.getId(), 1));
+        assertThrows(DuplicateMemberException.class, () -> createMember(member.getName()));
+
+        assertEquals(succeeded + 1, count("order", "none"));
+        assertEquals(notEnoughStock + 1, count("order", "NotEnoughStockException"));
+        assertEquals(1, count("join", "DuplicateMemberException"));
+    }
+
+    @Test
+    public void Prometheus로_히스토그램_노출() throws Exception {
+        orderService.findOrders(new OrderSearch());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("jpashop_service_seconds_bucket")))
+                .andExpect(content().string(containsString("jpashop_service_seconds_count{class=\"jpabook.jpashop.service.OrderService\",exception=\"none\",method=\"findOrders\"}")));
+    }
+
+    private double count(String method, String exception) {
+        Timer timer = meterRegistry.find("jpashop.service")
+                .tags("method", method, "exception", exception)
+                .timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    private Member createMember(String name) {
+        Member member = new Member();
+        member.setName(name);
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        memberService.join(member);
+        return member;
+    }
+
+    private Book createBook(int stockQuantity) {
+        Book book = new Book();
+        book.setName("시골 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(stockQuantity);
+        itemService.saveItem(book);
+        return book;
+    }
+}
@@ -0,0 +1,48 @@
+package jpabook.jpashop.config;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VirtualThreadPinningMonitorTest {
+
+    @Test
+    public void synchronized_안에서_대기하면_pinning_기록() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        VirtualThreadPinningMonitor monitor = new VirtualThreadPinningMonitor(registry, Duration.ofMillis(10));
+        monitor.start();
+        try {
+            Object lock = new Object();
+            Thread.ofVirtual().start(() -> {
+                synchronized (lock) {
+                    sleep(50);
+                }
+            }).join();
+
+            // JFR 스트림은 이벤트를 모아서(약 1초마다) 전달
+            Timer timer = null;
+            for (int i = 0; i < 50 && timer == null; i++) {
+                Thread.sleep(100);
+                timer = registry.find("jpashop.virtual.pinned").timer();
+            }
+
+            assertNotNull(timer, "가상 스레드가 synchronized 안에서 sleep하면 pinned로 기록되어야 한다.");
+            assertEquals(1, timer.count());
+            assertTrue(timer.getId().getTag("site").startsWith(getClass().getName()), timer.getId().getTag("site"));
+        } finally {
+            monitor.stop();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
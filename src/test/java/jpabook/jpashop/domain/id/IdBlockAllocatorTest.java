@@ -0,0 +1,71 @@
+package jpabook.jpashop.domain.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdBlockAllocatorTest {
+
+    @Test
+    public void 블록_안에서는_시퀀스_호출없이() throws Exception {
+        IdBlockAllocator allocator = new IdBlockAllocator(100);
+        Sequence sequence = new Sequence(100);
+
+        assertEquals(1, allocator.next(sequence::next));
+        assertEquals(2, allocator.next(sequence::next));
+        for (int i = 3; i <= 100; i++) {
+            allocator.next(sequence::next);
+        }
+        assertEquals(1, sequence.calls.get(), "100개까지는 시퀀스 한번");
+
+        assertEquals(101, allocator.next(sequence::next));
+        assertEquals(2, sequence.calls.get());
+    }
+
+    @Test
+    public void 동시에_꺼내도_중복없음() throws Exception {
+        IdBlockAllocator allocator = new IdBlockAllocator(50);
+        Sequence sequence = new Sequence(50);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    ids.add(allocator.next(sequence::next));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(80_000, ids.size(), "id가 중복되면 안된다.");
+        assertTrue(sequence.calls.get() <= 80_000 / 50 + 8, "동시에 받아온 블록도 버리지 않고 사용해야 한다.");
+    }
+
+    // start with 1 increment by size 시퀀스
+    static class Sequence {
+        final AtomicLong calls = new AtomicLong();
+        final long increment;
+
+        Sequence(long increment) {
+            this.increment = increment;
+        }
+
+        long next() {
+            return 1 + (calls.getAndIncrement() * increment);
+        }
+    }
+}
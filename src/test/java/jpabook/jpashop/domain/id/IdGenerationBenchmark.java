@@ -0,0 +1,107 @@
+package jpabook.jpashop.domain.id;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * insert 처리량 벤치마크 : allocation-size 별 (1 = insert마다 시퀀스 호출, 50 = 이전 Hibernate 기본값, 1000 = 현재 설정)
+ * gradle benchmark --tests '*IdGenerationBenchmark*' -Dbenchmark.threads=8 -Dbenchmark.rows=20000
+ * - threads : 동시에 insert하는 스레드 수
+ * - rows : 스레드당 insert 수 (100건씩 한 트랜잭션)
+ */
+@Tag("benchmark")
+abstract class IdGenerationBenchmark {
+
+    private static final int ROWS_PER_TRANSACTION = 100;
+
+    @PersistenceContext EntityManager em;
+    @Autowired EntityManagerFactory emf;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    int threads = Integer.getInteger("benchmark.threads", 8);
+    int rowsPerThread = Integer.getInteger("benchmark.rows", 20_000);
+
+    @SpringBootTest(properties = {
+            "spring.datasource.url=jdbc:h2:mem:id1",
+            "spring.jpa.properties.jpashop.id.allocation-size=1",
+            "logging.level.org.hibernate.SQL=info",
+            "spring.jpa.properties.hibernate.generate_statistics=true",
+            "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn"
+    })
+    static class AllocationSize1 extends IdGenerationBenchmark {
+    }
+
+    @SpringBootTest(properties = {
+            "spring.datasource.url=jdbc:h2:mem:id50",
+            "spring.jpa.properties.jpashop.id.allocation-size=50",
+            "logging.level.org.hibernate.SQL=info",
+            "spring.jpa.properties.hibernate.generate_statistics=true",
+            "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn"
+    })
+    static class AllocationSize50 extends IdGenerationBenchmark {
+    }
+
+    @SpringBootTest(properties = {
+            "spring.datasource.url=jdbc:h2:mem:id1000",
+            "spring.jpa.properties.jpashop.id.allocation-size=1000",
+            "logging.level.org.hibernate.SQL=info",
+            "spring.jpa.properties.hibernate.generate_statistics=true",
+            "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn"
+    })
+    static class AllocationSize1000 extends IdGenerationBenchmark {
+    }
+
+    @Test
+    public void insert_처리량() throws Exception {
+        insert(ROWS_PER_TRANSACTION * 10); // 워밍업
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> insert(rowsPerThread)));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        executor.shutdown();
+
+        long rows = (long) threads * rowsPerThread;
+        System.out.printf("%-18s threads=%d, rows=%d, %.0f rows/s, statements=%d (%.3f per row)%n",
+                getClass().getSimpleName(), threads, rows, rows / seconds,
+                statistics.getPrepareStatementCount(), (double) statistics.getPrepareStatementCount() / rows);
+    }
+
+    private void insert(int rows) {
+        for (int done = 0; done < rows; done += ROWS_PER_TRANSACTION) {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int i = 0; i < ROWS_PER_TRANSACTION; i++) {
+                    Member member = new Member();
+                    member.setName("id-" + UUID.randomUUID());
+                    member.setAddress(new Address("서울", "강가", "123-123"));
+                    em.persist(member);
+                }
+            });
+        }
+    }
+}
@@ -56,4 +56,18 @@ class MemberServiceTest {
         // then
         fail("예외가 발생해야 한다.");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void 필터에_없어도_DB_unique_인덱스로_중복_예외() throws Exception {
+        // given - 필터를 거치지 않고 저장된 회원 (동시에 가입된 경우와 같음)
+        Member member1 = new Member();
+        member1.setName("lee");
+        em.persist(member1);
+
+        Member member2 = new Member();
+        member2.setName("lee");
+
+        // when, then
+        assertThrows(IllegalStateException.class, () -> memberService.join(member2));
+    }
+}
@@ -0,0 +1,67 @@
+package jpabook.jpashop.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MemberNameFilterTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    public void 있는_이름은_항상_maybe() throws Exception {
+        MemberNameFilter filter = load(List.of("userA", "userB", "김영한"), 1000);
+
+        assertTrue(filter.mightContain("userA"));
+        assertTrue(filter.mightContain("김영한"));
+
+        filter.put("userC");
+        assertTrue(filter.mightContain("userC"), "가입하면 바로 반영");
+    }
+
+    @Test
+    public void 오탐률은_설정값_근처() throws Exception {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            names.add("member-" + i);
+        }
+        MemberNameFilter filter = load(names, 10_000);
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightContain("other-" + i)) {
+                filter.recordFalsePositive();
+                falsePositives++;
+            }
+        }
+
+        assertTrue(falsePositives < 300, "목표 오탐률 1% (10000건 중 100건 안팎), 실제=" + falsePositives);
+        double rate = meterRegistry.get("jpashop.member.name.filter.false.positive.rate").gauge().value();
+        assertEquals(falsePositives / 10_000.0, rate, 0.0001);
+        double expected = meterRegistry.get("jpashop.member.name.filter.expected.false.positive.rate").gauge().value();
+        assertEquals(0.01, expected, 0.005);
+    }
+
+    @Test
+    public void 적재_전에는_항상_DB확인() throws Exception {
+        MemberNameFilter filter = new MemberNameFilter(mock(MemberRepository.class), meterRegistry, 1000, 0.01);
+
+        assertTrue(filter.mightContain("아무이름"));
+        assertEquals(MemberNameFilter.Check.NOT_LOADED, filter.check("아무이름"), "적재 전 DB 확인은 오탐으로 세지 않음");
+        assertEquals(0, meterRegistry.get("jpashop.member.name.filter.checks").tag("result", "maybe").counter().count());
+    }
+
+    private MemberNameFilter load(List<String> names, long expectedInsertions) {
+        MemberRepository memberRepository = mock(MemberRepository.class);
+        when(memberRepository.findAllNames()).thenReturn(names);
+        MemberNameFilter filter = new MemberNameFilter(memberRepository, meterRegistry, expectedInsertions, 0.01);
+        filter.load();
+        return filter;
+    }
+}
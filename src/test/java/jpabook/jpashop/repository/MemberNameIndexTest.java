@@ -0,0 +1,80 @@
+package jpabook.jpashop.repository;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Member;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class MemberNameIndexTest {
+
+    @Autowired MemberNameIndex index;
+    @Autowired EntityManager em;
+
+    @Test
+    public void 부분_이름_검색() throws Exception {
+        Long a = save("idxUserA");
+        Long b = save("idxUserB");
+        Long c = save("김영한idx");
+
+        assertEquals(Set.of(a, b), index.findIds("idxUser"));
+        assertEquals(Set.of(b), index.findIds("serB"));
+        assertEquals(Set.of(c), index.findIds("영한idx"));
+        assertEquals(Set.of(), index.findIds("idxUserC"));
+    }
+
+    @Test
+    public void 검색어가_3글자_미만이어도_인덱스로() throws Exception {
+        Long a = save("김영한idx");
+        Long b = save("idx김영");   // 검색어가 이름 끝에
+        Long c = save("zq");       // 3글자 미만 이름
+        Long d = save("idx%_A");   // like 특수문자
+
+        assertEquals(Set.of(a), index.findIds("영한"));
+        assertTrue(index.findIds("영").containsAll(Set.of(a, b)));
+        assertTrue(index.findIds("zq").contains(c));
+        assertEquals(Set.of(d), index.findIds("%_"));
+    }
+
+    @Test
+    public void trigram이_모두_있어도_연속되지_않으면_제외() throws Exception {
+        save("abcXbcd");
+
+        assertEquals(Set.of(), index.findIds("abcd"));
+    }
+
+    @Test
+    public void 이름_변경시_이전_이름으로는_검색안됨() throws Exception {
+        Long id = save("idxUserA");
+
+        index.put(id, "idxMemberA");
+
+        assertEquals(Set.of(), index.findIds("idxUser"));
+        assertEquals(Set.of(id), index.findIds("idxMemberA"));
+    }
+
+    @Test
+    public void SQL로_넣은_회원은_indexMissing이_채움() throws Exception {
+        em.createNativeQuery("insert into member (member_id, name) values (900000001, 'idxSqlMember')")
+                .executeUpdate();
+        assertEquals(Set.of(), index.findIds("idxSqlMember"));
+
+        assertTrue(index.indexMissing() >= 1);
+        assertEquals(Set.of(900000001L), index.findIds("SqlMem"));
+    }
+
+    private Long save(String name) {
+        Member member = new Member();
+        member.setName(name);
+        em.persist(member);
+        index.add(member.getId(), name);
+        return member.getId();
+    }
+}
@@ -0,0 +1,111 @@
+package jpabook.jpashop.repository;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.OrderStatus;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 주문 검색 조건/정렬 조합마다 H2 EXPLAIN 결과에 테이블 풀스캔(tableScan)이 없는지 확인
+ * 회원 이름 검색은 테스트에서 만든 회원으로 (3글자 이상, 1~2글자, 일치하는 회원 1000명 초과)
+ * 조건 값은 SQL에 바로 박히도록(inline) 해서 실행된 SQL 그대로 EXPLAIN
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.criteria.value_handling_mode=inline",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=jpabook.jpashop.repository.OrderSearchIndexTest$LastSqlInspector"
+})
+@Transactional
+class OrderSearchIndexTest {
+
+    @Autowired OrderRepository orderRepository;
+    @Autowired MemberNameIndex memberNameIndex;
+    @Autowired EntityManager em;
+
+    @Test
+    public void 검색조건_정렬_조합별_인덱스_사용() throws Exception {
+        // 이름 검색용 회원 - 일치하는 회원이 1000명이 넘는 검색어(explainbuyer), 1~2글자 검색어도 확인
+        for (int i = 0; i < 1100; i++) {
+            Member member = new Member();
+            member.setName("explainbuyer-" + i);
+            em.persist(member);
+            memberNameIndex.add(member.getId(), member.getName());
+        }
+        em.flush();
+        assertEquals(1100, memberNameIndex.findIds("explainbuyer").size());
+
+        List<Consumer<OrderSearch>> filters = List.of(
+                s -> {},
+                s -> s.setOrderStatus(OrderStatus.ORDER),
+                s -> s.setMemberName("buyer-7"),
+                s -> s.setMemberName("explainbuyer"),
+                s -> s.setMemberName("-7"),
+                s -> s.setMemberName("r"),
+                s -> s.setItemId(1L),
+                s -> s.setOrderDateFrom(LocalDate.now().minusDays(7)),
+                s -> {
+                    s.setOrderDateFrom(LocalDate.now().minusDays(7));
+                    s.setOrderDateTo(LocalDate.now());
+                },
+                s -> {
+                    s.setOrderStatus(OrderStatus.CANCEL);
+                    s.setOrderDateFrom(LocalDate.now().minusDays(7));
+                },
+                s -> {
+                    s.setMemberName("explainbuyer");
+                    s.setOrderDateTo(LocalDate.now());
+                },
+                s -> {
+                    s.setMemberName("ex");
+                    s.setOrderStatus(OrderStatus.ORDER);
+                    s.setItemId(1L);
+                }
+        );
+        List<OrderSort> sorts = new ArrayList<>(List.of(OrderSort.values()));
+        sorts.add(null);
+
+        for (Consumer<OrderSearch> filter : filters) {
+            for (OrderSort sort : sorts) {
+                OrderSearch search = new OrderSearch();
+                filter.accept(search);
+                search.setSort(sort);
+
+                String plan = explain(search);
+                assertFalse(plan.contains("tableScan"), "인덱스를 타야 함:\n" + plan);
+            }
+        }
+    }
+
+    private String explain(OrderSearch search) {
+        LastSqlInspector.lastSql = null;
+        orderRepository.findAllByCriteria(search);
+        assertNotNull(LastSqlInspector.lastSql, "검색 쿼리가 실행되어야 함");
+
+        // 남아있는 파라미터는 최대 건수(setMaxResults)
+        String sql = LastSqlInspector.lastSql.replace("?", "1000");
+        return (String) em.createNativeQuery("explain " + sql).getSingleResult();
+    }
+
+    public static class LastSqlInspector implements StatementInspector {
+
+        static volatile String lastSql;
+
+        @Override
+        public String inspect(String sql) {
+            if (sql.contains("orders")) {
+                lastSql = sql;
+            }
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package jpabook.jpashop.repository.order.query;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.OrderStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderFlatAccumulatorTest {
+
+    OrderFlatAccumulator accumulator = new OrderFlatAccumulator();
+
+    @Test
+    public void 다음_주문의_row가_오면_이전_주문을_돌려줌() throws Exception {
+        assertNull(accumulator.add(flat(1L, "JPA1 BOOK")));
+        assertNull(accumulator.add(flat(1L, "JPA2 BOOK")));
+
+        OrderQueryDto first = accumulator.add(flat(2L, "SPRING1 BOOK"));
+        assertEquals(1L, first.getOrderId());
+        assertEquals(2, first.getOrderItems().size());
+
+        OrderQueryDto last = accumulator.finish();
+        assertEquals(2L, last.getOrderId());
+        assertEquals("SPRING1 BOOK", last.getOrderItems().get(0).getItemName());
+        assertNull(accumulator.finish());
+    }
+
+    @Test
+    public void 주문상품이_없는_주문() throws Exception {
+        accumulator.add(flat(1L, null));
+
+        OrderQueryDto order = accumulator.finish();
+        assertEquals(1L, order.getOrderId());
+        assertTrue(order.getOrderItems().isEmpty());
+    }
+
+    @Test
+    public void 이름이_없는_상품도_주문상품으로() throws Exception {
+        accumulator.add(flat(1L, 10L, null));
+
+        OrderQueryDto order = accumulator.finish();
+        assertEquals(1, order.getOrderItems().size());
+        assertNull(order.getOrderItems().get(0).getItemName());
+        assertEquals(10000, order.getOrderItems().get(0).getOrderPrice());
+    }
+
+    private OrderFlatDto flat(Long orderId, String itemName) {
+        return flat(orderId, itemName == null ? null : orderId * 10, itemName);
+    }
+
+    private OrderFlatDto flat(Long orderId, Long orderItemId, String itemName) {
+        return new OrderFlatDto(orderId, "userA", LocalDateTime.now(), OrderStatus.ORDER, new Address("서울", "1", "1111"),
+                orderItemId, itemName, orderItemId == null ? null : 10000, orderItemId == null ? null : 1);
+    }
+}
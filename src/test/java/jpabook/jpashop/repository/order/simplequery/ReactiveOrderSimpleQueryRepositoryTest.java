@@ -0,0 +1,113 @@
+package jpabook.jpashop.repository.order.simplequery;
+
+import jakarta.persistence.EntityManagerFactory;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:reactive",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn"
+})
+@AutoConfigureMockMvc
+class ReactiveOrderSimpleQueryRepositoryTest {
+
+    @Autowired ReactiveOrderSimpleQueryRepository reactiveOrderSimpleQueryRepository;
+    @Autowired OrderService orderService;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired EntityManagerFactory emf;
+    @Autowired MockMvc mockMvc;
+
+    @Test
+    public void 전체를_keyset_페이지로_순서대로() throws Exception {
+        createOrders(5);
+
+        List<Long> orderIds = reactiveOrderSimpleQueryRepository.findOrderDtos(0L, 2)
+                .map(OrderSimpleQueryDto::getOrderId)
+                .collectList()
+                .block();
+
+        assertTrue(orderIds.size() >= 5);
+        assertEquals(orderIds.stream().sorted().distinct().toList(), orderIds, "id 순서대로 중복 없이 나와야 한다.");
+    }
+
+    @Test
+    public void 요청한_만큼만_DB에서_읽음() throws Exception {
+        createOrders(5);
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        StepVerifier.create(reactiveOrderSimpleQueryRepository.findOrderDtos(0L, 1), 1)
+                .expectNextCount(1)
+                .then(() -> sleep(300))
+                .then(() -> assertTrue(statistics.getQueryExecutionCount() <= 2,
+                        "한 건만 요청했으면 그 페이지 + 미리 읽는 한 페이지까지만 조회해야 한다. " + statistics.getQueryExecutionCount()))
+                .thenRequest(1)
+                .expectNextCount(1)
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    public void API는_NDJSON으로_스트리밍() throws Exception {
+        createOrders(2);
+
+        MvcResult result = mockMvc.perform(get("/api/reactive/simple-orders")
+                        .param("pageSize", "1")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult(5000);
+
+        String[] lines = result.getResponse().getContentAsString().trim().split("\n");
+        assertTrue(lines.length >= 2);
+        assertTrue(lines[0].startsWith("{\"orderId\""), lines[0]);
+    }
+
+    private void createOrders(int count) {
+        Member member = new Member();
+        member.setName("reactive-" + UUID.randomUUID());
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        Long memberId = memberService.join(member);
+
+        Book book = new Book();
+        book.setName("시골 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(100);
+        itemService.saveItem(book);
+
+        for (int i = 0; i < count; i++) {
+            orderService.order(memberId, book.getId(), 1);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package jpabook.jpashop.service;
+
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.repository.OrderRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "jpashop.stock.mode=ATOMIC",
+        "spring.datasource.url=jdbc:h2:mem:atomic"
+})
+@Transactional
+class AtomicStockOrderTest {
+
+    @PersistenceContext EntityManager em;
+    @Autowired OrderService orderService;
+    @Autowired OrderRepository orderRepository;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    @Test
+    public void 주문하면_조건부_update로_차감() throws Exception {
+        //Given
+        Member member = createMember();
+        Item item = createBook(10);
+
+        //When
+        Long orderId = orderService.order(member.getId(), item.getId(), 3);
+
+        //Then
+        assertEquals(7, item.getStockQuantity(), "이미 읽어둔 엔티티도 DB 재고와 같아야 한다.");
+        assertEquals(10000 * 3, orderRepository.findOne(orderId).getTotalPrice());
+    }
+
+    @Test
+    public void 재고수량초과() throws Exception {
+        Member member = createMember();
+        Item item = createBook(10);
+
+        assertThrows(NotEnoughStockException.class, () -> orderService.order(member.getId(), item.getId(), 11));
+        assertEquals(10, item.getStockQuantity());
+    }
+
+    @Test
+    public void 주문취소() throws Exception {
+        Member member = createMember();
+        Item item = createBook(10);
+        Long orderId = orderService.order(member.getId(), item.getId(), 2);
+
+        orderService.cancelOrder(orderId);
+
+        assertEquals(OrderStatus.CANCEL, orderRepository.findOne(orderId).getStatus());
+        assertEquals(10, item.getStockQuantity(), "취소한 수량만큼 재고가 돌아와야 한다.");
+    }
+
+    @Test
+    public void 장바구니주문() throws Exception {
+        Member member = createMember();
+        Item book1 = createBook(10);
+        Item book2 = createBook(5);
+
+        Long orderId = orderService.order(member.getId(), Map.of(book2.getId(), 5, book1.getId(), 1));
+
+        assertEquals(2, orderRepository.findOne(orderId).getOrderItems().size());
+        assertEquals(9, book1.getStockQuantity());
+        assertEquals(0, book2.getStockQuantity());
+        assertThrows(NotEnoughStockException.class,
+                () -> orderService.order(member.getId(), Map.of(book1.getId(), 1, book2.getId(), 1)));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // 커밋 후 2차 캐시를 확인
+    public void 주문한_상품만_2차캐시에서_무효화() throws Exception {
+        Long[] ids = transactionTemplate.execute(status -> {
+            Member member = new Member();
+            member.setName("회원-" + UUID.randomUUID());
+            em.persist(member);
+            return new Long[]{member.getId(), createBook(10).getId(), createBook(10).getId()};
+        });
+        Long memberId = ids[0], orderedId = ids[1], otherId = ids[2];
+        transactionTemplate.executeWithoutResult(status -> {
+            em.find(Item.class, orderedId);
+            em.find(Item.class, otherId);
+        });
+        Cache cache = em.getEntityManagerFactory().getCache();
+        assertTrue(cache.contains(Item.class, orderedId));
+        assertTrue(cache.contains(Item.class, otherId));
+
+        orderService.order(memberId, orderedId, 3);
+
+        assertFalse(cache.contains(Item.class, orderedId), "주문한 상품은 캐시에서 빠져야 한다.");
+        assertTrue(cache.contains(Item.class, otherId), "다른 상품 캐시는 남아 있어야 한다.");
+        assertEquals(7, transactionTemplate.execute(status -> em.find(Item.class, orderedId).getStockQuantity()));
+    }
+
+    private Member createMember() {
+        Member member = new Member();
+        member.setName("회원1");
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        em.persist(member);
+        return member;
+    }
+
+    private Book createBook(int stockQuantity) {
+        Book book = new Book();
+        book.setName("시골 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(stockQuantity);
+        em.persist(book);
+        return book;
+    }
+}
@@ -0,0 +1,115 @@
+package jpabook.jpashop.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 대량 주문 처리량 벤치마크 (rows/s, row = 주문 + 주문상품 + 배송)
+ * gradle benchmark --tests '*BulkOrderBenchmark' -Dbenchmark.orders=20000 -Dbenchmark.batch-size=100
+ * - orders : 주문 수
+ * - batch-size : hibernate.jdbc.batch_size (0이면 배치 안함)
+ * 비교 대상 : 같은 주문을 OrderService.order로 한 건씩 (주문마다 트랜잭션)
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:bulk",
+        "spring.jpa.properties.hibernate.jdbc.batch_size=${benchmark.batch-size:100}",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.SQL=info",
+        "logging.level.org.hibernate.type=info",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn"
+})
+class BulkOrderBenchmark {
+
+    private static final int ITEMS = 20;
+
+    @Autowired OrderService orderService;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired EntityManagerFactory emf;
+
+    int orders = Integer.getInteger("benchmark.orders", 10_000);
+
+    @Test
+    public void 대량주문_vs_한건씩() throws Exception {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        List<Long> memberIds = createMembers(100);
+        List<Long> itemIds = createBooks();
+        List<OrderCommand> commands = createCommands(memberIds, itemIds, orders);
+
+        // 워밍업
+        orderService.bulkOrder(createCommands(memberIds, itemIds, 1000));
+
+        statistics.clear();
+        long start = System.nanoTime();
+        orderService.bulkOrder(commands);
+        report("bulk", commands, System.nanoTime() - start, statistics);
+
+        statistics.clear();
+        start = System.nanoTime();
+        for (OrderCommand command : commands) {
+            orderService.order(command.getMemberId(), command.getItemCounts());
+        }
+        report("one by one", commands, System.nanoTime() - start, statistics);
+    }
+
+    private void report(String name, List<OrderCommand> commands, long elapsedNanos, Statistics statistics) {
+        long rows = commands.stream().mapToLong(command -> 2 + command.getItemCounts().size()).sum();
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        System.out.printf("%-10s orders=%d, rows=%d, %.0f rows/s, statements=%d (%.2f per row), transactions=%d%n",
+                name, commands.size(), rows, rows / seconds,
+                statistics.getPrepareStatementCount(),
+                (double) statistics.getPrepareStatementCount() / rows,
+                statistics.getTransactionCount());
+    }
+
+    private List<OrderCommand> createCommands(List<Long> memberIds, List<Long> itemIds, int count) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<OrderCommand> commands = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Long itemA = itemIds.get(random.nextInt(itemIds.size()));
+            Long itemB = itemIds.get(random.nextInt(itemIds.size()));
+            Map<Long, Integer> itemCounts = itemA.equals(itemB) ? Map.of(itemA, 2) : Map.of(itemA, 1, itemB, 1);
+            commands.add(new OrderCommand(memberIds.get(random.nextInt(memberIds.size())), itemCounts));
+        }
+        return commands;
+    }
+
+    private List<Long> createMembers(int count) {
+        List<Long> memberIds = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Member member = new Member();
+            member.setName("bulk-" + UUID.randomUUID());
+            member.setAddress(new Address("서울", "강가", "123-123"));
+            memberIds.add(memberService.join(member));
+        }
+        return memberIds;
+    }
+
+    private List<Long> createBooks() {
+        List<Long> itemIds = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            Book book = new Book();
+            book.setName("bulk book " + i);
+            book.setPrice(10000);
+            book.setStockQuantity(Integer.MAX_VALUE / 2);
+            itemService.saveItem(book);
+            itemIds.add(book.getId());
+        }
+        return itemIds;
+    }
+}
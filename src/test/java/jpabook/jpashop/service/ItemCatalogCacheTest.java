@@ -0,0 +1,83 @@
+package jpabook.jpashop.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemCatalogCacheTest {
+
+    AtomicLong nanos = new AtomicLong();
+    ItemCatalogCache cache = new ItemCatalogCache(new SimpleMeterRegistry(), Duration.ofSeconds(30), nanos::get);
+
+    @Test
+    public void 목록은_무효화_전까지_캐시에서() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.getAll(() -> load(loads, "JPA1 BOOK"));
+        List<ItemSnapshot> items = cache.getAll(() -> load(loads, "JPA1 BOOK"));
+
+        assertEquals(1, loads.get(), "두번째 조회는 DB를 안 읽어야 한다.");
+        assertEquals("JPA1 BOOK", items.get(0).getName());
+
+        cache.evict(1L);
+        cache.getAll(() -> load(loads, "JPA1 BOOK"));
+        assertEquals(2, loads.get(), "무효화 후에는 다시 읽어야 한다.");
+    }
+
+    @Test
+    public void 읽는_도중_무효화되면_읽은_목록은_캐시하지_않음() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+
+        // 목록을 읽는 도중에 다른 트랜잭션이 상품을 수정하고 커밋한 상황
+        cache.getAll(() -> {
+            List<ItemSnapshot> before = load(loads, "before");
+            cache.evict(1L);
+            return before;
+        });
+        List<ItemSnapshot> items = cache.getAll(() -> load(loads, "after"));
+
+        assertEquals(2, loads.get());
+        assertEquals("after", items.get(0).getName(), "이전 데이터가 캐시에 남으면 안된다.");
+    }
+
+    @Test
+    public void ttl이_지나면_다시_읽음() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.getAll(() -> load(loads, "JPA1 BOOK"));
+        cache.get(1L, id -> load(loads, "JPA1 BOOK").get(0));
+        nanos.addAndGet(Duration.ofSeconds(29).toNanos());
+        cache.getAll(() -> load(loads, "JPA1 BOOK"));
+        cache.get(1L, id -> load(loads, "JPA1 BOOK").get(0));
+        assertEquals(2, loads.get());
+
+        // 무효화 없이 다른 곳에서 바뀐 값도 ttl이 지나면 반영
+        nanos.addAndGet(Duration.ofSeconds(2).toNanos());
+        assertEquals("changed", cache.getAll(() -> load(loads, "changed")).get(0).getName());
+        assertEquals("changed", cache.get(1L, id -> load(loads, "changed").get(0)).getName());
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    public void 없는_상품은_캐시하지_않음() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+
+        assertNull(cache.get(1L, id -> {
+            loads.incrementAndGet();
+            return null;
+        }));
+        assertEquals("JPA1 BOOK", cache.get(1L, id -> load(loads, "JPA1 BOOK").get(0)).getName());
+        assertEquals(2, loads.get());
+    }
+
+    private List<ItemSnapshot> load(AtomicInteger loads, String name) {
+        loads.incrementAndGet();
+        return List.of(new ItemSnapshot(1L, name, 10000, 10, null, null));
+    }
+}
@@ -0,0 +1,80 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.repository.MemberRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * chunk마다 커밋되므로 테스트 트랜잭션(롤백) 없이 별도 DB에서
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:import")
+class MemberImportServiceTest {
+
+    @Autowired MemberImportService memberImportService;
+    @Autowired MemberService memberService;
+    @Autowired MemberRepository memberRepository;
+
+    @Test
+    public void CSV_가져오기() throws Exception {
+        //Given - 이미 가입된 회원 1명, 파일 안 중복 1줄, 이름 없는 줄 1줄, chunk(1000건) 여러개
+        Member existing = new Member();
+        existing.setName("import-7");
+        memberService.join(existing);
+
+        StringBuilder csv = new StringBuilder("name,city,street,zipcode\n");
+        for (int i = 0; i < 2500; i++) {
+            csv.append("import-").append(i).append(",서울,강가,").append(i).append('\n');
+        }
+        csv.append("import-1,부산,해변,1\n");
+        csv.append(",서울,강가,1\n");
+
+        //When
+        MemberImportResult result = memberImportService.importCsv(new StringReader(csv.toString()));
+
+        //Then
+        assertEquals(2499, result.getImported());
+        assertEquals(2, result.getDuplicates(), "이미 가입된 이름, 파일 안에서 중복된 이름은 건너뜀");
+        assertEquals(1, result.getInvalid());
+
+        List<Member> members = memberRepository.findByName("import-1");
+        assertEquals(1, members.size());
+        assertEquals("서울", members.get(0).getAddress().getCity(), "처음 나온 줄로 저장");
+        assertEquals(2500, memberRepository.findExistingNames(
+                IntStream.range(0, 2500).mapToObj(i -> "import-" + i).toList()).size());
+    }
+
+    @Test
+    public void 따옴표로_감싼_값() throws Exception {
+        String csv = "name,city,street,zipcode\n"
+                + "\"quoted, member\",\"Seoul, Gangnam\",\"테헤란로 \"\"1\"\"\",06000\n"
+                + "shifted-member,Seoul, Gangnam,테헤란로,06000\n"   // 따옴표 없이 쉼표 => 열 수가 안 맞음
+                + "\"unclosed-member,서울,강가,1\n"
+                + "bad\"quote-member,서울,강가,1\n";
+
+        MemberImportResult result = memberImportService.importCsv(new StringReader(csv));
+
+        assertEquals(1, result.getImported());
+        assertEquals(3, result.getInvalid(), "형식이 잘못된 줄은 저장하지 않음");
+        Member member = memberRepository.findByName("quoted, member").get(0);
+        assertEquals("Seoul, Gangnam", member.getAddress().getCity());
+        assertEquals("테헤란로 \"1\"", member.getAddress().getStreet());
+        assertEquals("06000", member.getAddress().getZipcode());
+        assertTrue(memberRepository.findByName("shifted-member").isEmpty());
+    }
+
+    @Test
+    public void CSV_한줄_파싱() throws Exception {
+        assertEquals(List.of("a", "", "b"), MemberImportService.parseLine("a,,b"));
+        assertEquals(List.of("a,b", ""), MemberImportService.parseLine("\"a,b\","));
+        assertEquals(List.of(""), MemberImportService.parseLine(""));
+        assertNull(MemberImportService.parseLine("\"a\"b"));
+    }
+}
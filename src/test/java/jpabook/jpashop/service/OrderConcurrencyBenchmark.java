@@ -0,0 +1,181 @@
+package jpabook.jpashop.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 주문 동시성 벤치마크 : 낙관적 락 + 재시도 vs 마지막에 쓴 쪽이 이김(last-writer-wins, @Version 이전 동작)
+ * gradle benchmark --tests '*OrderConcurrencyBenchmark' -Dbenchmark.threads=16 -Dbenchmark.items=1 -Dbenchmark.orders=100
+ * - threads : 동시에 주문하는 스레드 수
+ * - items : 주문이 나눠지는 상품 수 (적을수록 경합이 심함)
+ * - orders : 스레드당 주문 수
+ *
+ * last-writer-wins는 엔티티에 @Version이 붙은 뒤로는 그대로 재현할 수 없어서
+ * 예전 변경감지와 같은 update (읽은 재고 - 수량을 버전 조건 없이 덮어쓰기)로 흉내냄
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:benchmark",
+        "logging.level.org.hibernate.SQL=info",
+        "logging.level.org.hibernate.type=info"
+})
+class OrderConcurrencyBenchmark {
+
+    private static final int INITIAL_STOCK = 1_000_000;
+
+    @PersistenceContext EntityManager em;
+    @Autowired OrderService orderService;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired TransactionTemplate transactionTemplate;
+    @Autowired MeterRegistry meterRegistry;
+
+    int threads = Integer.getInteger("benchmark.threads", 8);
+    int itemCount = Integer.getInteger("benchmark.items", 1);
+    int ordersPerThread = Integer.getInteger("benchmark.orders", 50);
+
+    @Test
+    public void 낙관적락_재시도_vs_last_writer_wins() throws Exception {
+        Long memberId = createMember();
+
+        // 워밍업
+        run("warm-up", memberId, createBooks(), (m, i) -> orderService.order(m, i, 1));
+
+        Result optimistic = run("optimistic+retry", memberId, createBooks(),
+                (m, i) -> orderService.order(m, i, 1));
+        Result lastWriterWins = run("last-writer-wins", memberId, createBooks(),
+                this::orderLastWriterWins);
+
+        System.out.printf("threads=%d, items=%d, orders/thread=%d%n", threads, itemCount, ordersPerThread);
+        System.out.printf("optimistic (워밍업 포함) retries=%.0f, conflicts=%.0f, exhausted=%.0f%n",
+                count("jpashop.optimistic.retries"), count("jpashop.optimistic.conflicts"),
+                count("jpashop.optimistic.exhausted"));
+        System.out.println(optimistic);
+        System.out.println(lastWriterWins);
+
+        assertEquals(0, optimistic.lostUpdates, "낙관적 락에서는 재고 변경이 사라지면 안된다.");
+    }
+
+    /**
+     * @Version 이전 동작 : 읽은 시점의 재고를 기준으로 계산해서 그대로 덮어씀
+     */
+    private void orderLastWriterWins(Long memberId, Long itemId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Member member = em.find(Member.class, memberId);
+            Item item = em.find(Item.class, itemId);
+
+            Delivery delivery = new Delivery();
+            delivery.setAddress(member.getAddress());
+            OrderItem orderItem = OrderItem.createOrderItem(item, item.getPrice(), 1);
+            Order order = Order.createOrder(member, delivery, orderItem);
+
+            // 변경감지(버전 체크) 대신 버전 조건 없는 update
+            em.detach(item);
+            em.persist(order);
+            em.createQuery("update Item i set i.stockQuantity = :stock where i.id = :itemId")
+                    .setParameter("stock", item.getStockQuantity())
+                    .setParameter("itemId", itemId)
+                    .executeUpdate();
+        });
+    }
+
+    private Result run(String name, Long memberId, List<Long> itemIds, OrderAction action) throws Exception {
+        AtomicInteger success = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                for (int n = 0; n < ordersPerThread; n++) {
+                    Long itemId = itemIds.get(ThreadLocalRandom.current().nextInt(itemIds.size()));
+                    try {
+                        action.order(memberId, itemId);
+                        success.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        failed.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        executor.shutdown();
+
+        int sold = 0;
+        for (Long itemId : itemIds) {
+            sold += INITIAL_STOCK - transactionTemplate.execute(status ->
+                    em.createQuery("select i.stockQuantity from Item i where i.id = :itemId", Integer.class)
+                            .setParameter("itemId", itemId)
+                            .getSingleResult());
+        }
+        return new Result(name, success.get(), failed.get(), success.get() - sold, elapsedNanos);
+    }
+
+    private double count(String name) {
+        return meterRegistry.find(name).counters().stream()
+                .mapToDouble(counter -> counter.count())
+                .sum();
+    }
+
+    private Long createMember() {
+        Member member = new Member();
+        member.setName("benchmark-" + UUID.randomUUID());
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        return memberService.join(member);
+    }
+
+    private List<Long> createBooks() {
+        List<Long> itemIds = new ArrayList<>();
+        for (int i = 0; i < itemCount; i++) {
+            Book book = new Book();
+            book.setName("benchmark book " + i);
+            book.setPrice(10000);
+            book.setStockQuantity(INITIAL_STOCK);
+            itemService.saveItem(book);
+            itemIds.add(book.getId());
+        }
+        return itemIds;
+    }
+
+    @FunctionalInterface
+    interface OrderAction {
+        void order(Long memberId, Long itemId);
+    }
+
+    record Result(String name, int success, int failed, int lostUpdates, long elapsedNanos) {
+        @Override
+        public String toString() {
+            double seconds = elapsedNanos / 1_000_000_000.0;
+            return String.format("%-18s success=%d, failed=%d, lost updates=%d, %.1f orders/s",
+                    name, success, failed, lostUpdates, success / seconds);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 쓰기 스레드가 커밋하므로 테스트 트랜잭션(롤백) 없이 별도 DB에서
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:intake",
+        "jpashop.order.intake.async=true"
+})
+@AutoConfigureMockMvc
+class OrderIntakeQueueTest {
+
+    @Autowired OrderIntakeQueue orderIntakeQueue;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired MockMvc mockMvc;
+
+    @Test
+    public void 접수한_주문을_모아서_저장() throws Exception {
+        //Given
+        Long memberId = createMember();
+        Long itemId = createBook(100);
+
+        //When
+        List<OrderTicket> tickets = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            tickets.add(orderIntakeQueue.submit(memberId, Map.of(itemId, 2)));
+        }
+        OrderTicket overStock = orderIntakeQueue.submit(memberId, Map.of(itemId, 1));
+
+        //Then
+        for (OrderTicket ticket : tickets) {
+            await(ticket);
+            assertEquals(OrderTicket.Status.COMPLETED, ticket.getStatus());
+            assertNotNull(ticket.getOrderId());
+        }
+        await(overStock);
+        assertEquals(OrderTicket.Status.FAILED, overStock.getStatus(), "재고가 부족한 주문만 실패");
+        assertEquals(0, itemService.findOne(itemId).getStockQuantity());
+    }
+
+    @Test
+    public void 재고가_부족한_주문만_빼고_묶음을_커밋() throws Exception {
+        //Given
+        Long memberId = createMember();
+        Long book1 = createBook(10);
+        Long book2 = createBook(1);
+
+        //When - 가운데 주문은 두번째 상품이 부족
+        OrderTicket first = orderIntakeQueue.submit(memberId, Map.of(book1, 1));
+        OrderTicket short2 = orderIntakeQueue.submit(memberId, Map.of(book1, 1, book2, 2));
+        OrderTicket third = orderIntakeQueue.submit(memberId, Map.of(book1, 1));
+
+        //Then
+        await(first);
+        await(short2);
+        await(third);
+        assertEquals(OrderTicket.Status.COMPLETED, first.getStatus());
+        assertEquals(OrderTicket.Status.FAILED, short2.getStatus());
+        assertEquals(OrderTicket.Status.COMPLETED, third.getStatus());
+        assertEquals(8, itemService.findOne(book1).getStockQuantity(), "실패한 주문은 첫번째 상품 재고도 그대로");
+        assertEquals(1, itemService.findOne(book2).getStockQuantity());
+    }
+
+    @Test
+    public void 수량이_1미만이면_접수하지_않음() throws Exception {
+        Long memberId = createMember();
+        Long itemId = createBook(10);
+
+        assertThrows(IllegalArgumentException.class, () -> orderIntakeQueue.submit(memberId, Map.of(itemId, 0)));
+    }
+
+    @Test
+    public void 없는_회원이면_접수하지_않음() throws Exception {
+        Long itemId = createBook(10);
+
+        assertThrows(IllegalArgumentException.class, () -> orderIntakeQueue.submit(-1L, Map.of(itemId, 1)));
+    }
+
+    @Test
+    public void API는_202와_접수표() throws Exception {
+        Long memberId = createMember();
+        Long itemId = createBook(10);
+
+        mockMvc.perform(post("/api/v2/orders/async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"memberId\":" + memberId + ",\"lines\":[{\"itemId\":" + itemId + ",\"count\":1}]}"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().exists("Location"))
+                .andExpect(jsonPath("$.ticketId").exists());
+    }
+
+    @Test
+    public void 주문_폼은_접수표_화면으로() throws Exception {
+        //Given
+        Long memberId = createMember();
+        Long itemId = createBook(1);
+
+        //When - 재고보다 많이 주문
+        String location = mockMvc.perform(post("/order")
+                        .param("memberId", String.valueOf(memberId))
+                        .param("itemId", String.valueOf(itemId))
+                        .param("count", "2"))
+                .andExpect(status().is3xxRedirection())
+                .andReturn().getResponse().getRedirectedUrl();
+
+        //Then - 접수표로 이동, 실패 사유를 볼 수 있음
+        assertTrue(location.startsWith("/orders/tickets/"));
+        OrderTicket ticket = orderIntakeQueue.findTicket(location.substring("/orders/tickets/".length())).orElseThrow();
+        await(ticket);
+        assertEquals(OrderTicket.Status.FAILED, ticket.getStatus());
+        mockMvc.perform(get(location))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("FAILED")));
+        mockMvc.perform(get("/orders/tickets/unknown"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void 접수표는_처리된_뒤부터_만료() throws Exception {
+        OrderIntakeQueue.TicketExpiry expiry = new OrderIntakeQueue.TicketExpiry(Duration.ofMinutes(10));
+        OrderTicket ticket = new OrderTicket("ticket", 1L, Map.of(1L, 1));
+
+        assertEquals(Long.MAX_VALUE, expiry.expireAfterCreate(ticket.getId(), ticket, 0), "QUEUED는 만료되지 않음");
+        ticket.complete(1L);
+        assertEquals(Duration.ofMinutes(10).toNanos(), expiry.expireAfterUpdate(ticket.getId(), ticket, 0, Long.MAX_VALUE));
+    }
+
+    private void await(OrderTicket ticket) throws InterruptedException {
+        for (int i = 0; i < 100 && ticket.getStatus() == OrderTicket.Status.QUEUED; i++) {
+            Thread.sleep(50);
+        }
+    }
+
+    private Long createMember() {
+        Member member = new Member();
+        member.setName("intake-" + UUID.randomUUID());
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        return memberService.join(member);
+    }
+
+    private Long createBook(int stockQuantity) {
+        Book book = new Book();
+        book.setName("시골 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(stockQuantity);
+        itemService.saveItem(book);
+        return book.getId();
+    }
+}
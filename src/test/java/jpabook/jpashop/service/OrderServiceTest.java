@@ -5,14 +5,22 @@ import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderStatus;
 import jpabook.jpashop.domain.item.Book;
 import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.exception.NotEnoughStockException;
 import jpabook.jpashop.repository.OrderRepository;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 @SpringBootTest
 @Transactional
 public class OrderServiceTest {
@@ -48,6 +56,83 @@ public class OrderServiceTest {
         //...
     }
 
+    @Test
+    public void 장바구니주문() throws Exception {
+        //Given
+        Member member = createMember();
+        Item book1 = createBook("시골 JPA", 10000, 10);
+        Item book2 = createBook("JPA 활용", 20000, 5);
+        Map<Long, Integer> itemCounts = new HashMap<>();
+        itemCounts.put(book2.getId(), 1);
+        itemCounts.put(book1.getId(), 2);
+
+        //When
+        Long orderId = orderService.order(member.getId(), itemCounts);
+
+        //Then
+        Order getOrder = orderRepository.findOne(orderId);
+        assertEquals(2, getOrder.getOrderItems().size(), "주문 하나에 상품 종류 수만큼 주문상품이 있어야 한다.");
+        assertEquals(10000 * 2 + 20000, getOrder.getTotalPrice());
+        assertEquals(8, book1.getStockQuantity());
+        assertEquals(4, book2.getStockQuantity());
+    }
+
+    @Test
+    public void 대량주문() throws Exception {
+        //Given - chunk(500건) 여러개에 걸치도록
+        Member member = createMember();
+        Item book1 = createBook("시골 JPA", 10000, 2000);
+        Item book2 = createBook("JPA 활용", 20000, 2000);
+        List<OrderCommand> commands = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            Map<Long, Integer> itemCounts = i % 2 == 0 ? Map.of(book1.getId(), 1) : Map.of(book1.getId(), 1, book2.getId(), 1);
+            commands.add(new OrderCommand(member.getId(), itemCounts));
+        }
+
+        //When
+        int count = orderService.bulkOrder(commands);
+
+        //Then
+        assertEquals(1200, count);
+        assertEquals(1200L, em.createQuery("select count(o) from Order o where o.member.id = :memberId", Long.class)
+                .setParameter("memberId", member.getId())
+                .getSingleResult());
+        assertEquals(2000 - 1200, em.find(Item.class, book1.getId()).getStockQuantity());
+        assertEquals(2000 - 600, em.find(Item.class, book2.getId()).getStockQuantity());
+    }
+
+    @Test
+    public void 주문수량은_1이상() throws Exception {
+        Member member = createMember();
+        Item item = createBook("시골 JPA", 10000, 10);
+
+        assertThrows(IllegalArgumentException.class, () -> orderService.order(member.getId(), item.getId(), 0));
+        assertThrows(IllegalArgumentException.class, () -> orderService.order(member.getId(), Map.of(item.getId(), -1)));
+        assertThrows(IllegalArgumentException.class, () -> orderService.bulkOrder(List.of(
+                new OrderCommand(member.getId(), Map.of(item.getId(), 1)),
+                new OrderCommand(member.getId(), Map.of(item.getId(), 0)))));
+        assertEquals(10, item.getStockQuantity(), "재고가 바뀌면 안된다.");
+    }
+
+    @Test
+    public void 묶음주문_재고부족이어도_트랜잭션은_계속() throws Exception {
+        //Given
+        Member member = createMember();
+        Item book1 = createBook("시골 JPA", 10000, 10);
+        Item book2 = createBook("JPA 활용", 20000, 1);
+
+        //When - 두번째 상품이 부족한 장바구니
+        assertThrows(NotEnoughStockException.class,
+                () -> orderService.orderInBatch(member.getId(), Map.of(book1.getId(), 3, book2.getId(), 2)));
+        Long orderId = orderService.orderInBatch(member.getId(), Map.of(book1.getId(), 1));
+
+        //Then
+        assertFalse(TransactionAspectSupport.currentTransactionStatus().isRollbackOnly(), "실패한 주문이 묶음 트랜잭션을 rollback-only로 만들면 안된다.");
+        assertEquals(9, book1.getStockQuantity(), "실패한 주문은 앞 상품 재고도 바꾸면 안된다.");
+        assertEquals(1, book2.getStockQuantity());
+        assertEquals(1, orderRepository.findOne(orderId).getOrderItems().size());
+    }
+
     private Member createMember() {
         Member member = new Member();
         member.setName("회원1");
@@ -0,0 +1,168 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.repository.ItemRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 재고 예약 모드 - 커밋/반영을 확인해야 해서 테스트 트랜잭션(롤백) 없이 진행
+ */
+@SpringBootTest(properties = {
+        "jpashop.stock.mode=RESERVATION",
+        "jpashop.stock.flush-interval=3600000",
+        "jpashop.stock.lease-renew-interval=100ms",
+        "spring.datasource.url=jdbc:h2:mem:stock"
+})
+class StockReservationEngineTest {
+
+    @Autowired OrderService orderService;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired ItemRepository itemRepository;
+    @Autowired StockReservationEngine stockReservationEngine;
+    @Autowired StockReservationLease stockReservationLease;
+    @Autowired TransactionTemplate transactionTemplate;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void 예약후_모아서_반영() throws Exception {
+        //Given
+        Long memberId = createMember();
+        Long itemId = createBook(10);
+
+        //When
+        Long orderId = orderService.order(memberId, itemId, 4);
+        orderService.order(memberId, itemId, 4);
+
+        //Then
+        assertEquals(10, stockOf(itemId), "반영 전에는 item 테이블 재고가 그대로");
+        assertThrows(NotEnoughStockException.class, () -> orderService.order(memberId, itemId, 3),
+                "예약된 재고를 빼고 남은 재고보다 많이 주문하면 예외");
+
+        stockReservationEngine.flush();
+        assertEquals(2, stockOf(itemId));
+
+        orderService.cancelOrder(orderId);
+        stockReservationEngine.flush();
+        assertEquals(6, stockOf(itemId), "취소한 수량만큼 재고가 돌아와야 한다.");
+        orderService.order(memberId, itemId, 6);
+    }
+
+    @Test
+    public void 반영전에_취소하면_상쇄() throws Exception {
+        Long memberId = createMember();
+        Long itemId = createBook(5);
+
+        Long orderId = orderService.order(memberId, itemId, 5);
+        orderService.cancelOrder(orderId);
+        stockReservationEngine.flush();
+
+        assertEquals(5, stockOf(itemId));
+        orderService.order(memberId, itemId, 5);
+    }
+
+    @Test
+    public void 동시_주문시_재고만큼만_성공() throws Exception {
+        Long memberId = createMember();
+        Long itemId = createBook(10);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            results.add(executor.submit(() -> {
+                try {
+                    orderService.order(memberId, itemId, 1);
+                    return true;
+                } catch (NotEnoughStockException e) {
+                    return false;
+                }
+            }));
+        }
+        int success = 0;
+        for (Future<Boolean> result : results) {
+            success += result.get() ? 1 : 0;
+        }
+        executor.shutdown();
+
+        stockReservationEngine.flush();
+        assertEquals(10, success);
+        assertEquals(0, stockOf(itemId));
+    }
+
+    @Test
+    public void 관리자_재고_수정은_커밋_안된_예약을_유지() throws Exception {
+        Long memberId = createMember();
+        Long itemId = createBook(10);
+        orderService.order(memberId, itemId, 4);
+
+        ExecutorService other = Executors.newSingleThreadExecutor();
+        transactionTemplate.executeWithoutResult(status -> {
+            // 이 트랜잭션의 예약(3개)은 아직 커밋 전 => stock_pending이 DB에 없음
+            orderService.order(memberId, itemId, 3);
+            try {
+                // 그 사이에 관리자가 재고를 10 -> 20으로 수정
+                other.submit(() -> itemService.updateItem(itemId, "시골 JPA", 10000, 20)).get();
+
+                // 주문 가능 재고 = 20 - 4 - 3 = 13
+                Future<?> oversold = other.submit(() -> orderService.order(memberId, itemId, 14));
+                Exception e = assertThrows(Exception.class, oversold::get);
+                assertInstanceOf(NotEnoughStockException.class, e.getCause(), "커밋 안된 예약까지 빼고 남은 재고만 주문 가능");
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        other.shutdown();
+
+        orderService.order(memberId, itemId, 13);
+        stockReservationEngine.flush();
+        assertEquals(0, stockOf(itemId));
+    }
+
+    @Test
+    public void lease를_점유한_인스턴스만_예약() throws Exception {
+        stockReservationLease.checkHeld();
+
+        // 이 컨텍스트의 lease는 100ms마다 갱신 => 1초 기다려도 만료되지 않음
+        StockReservationLease second = new StockReservationLease(jdbcTemplate, StockMode.RESERVATION,
+                Duration.ofSeconds(1), Duration.ofMillis(100));
+        assertThrows(IllegalStateException.class, second::acquire, "다른 인스턴스가 갱신 중이면 시작 실패");
+        assertThrows(IllegalStateException.class, second::checkHeld);
+    }
+
+    private Long createMember() {
+        Member member = new Member();
+        member.setName("회원-" + UUID.randomUUID());
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        return memberService.join(member);
+    }
+
+    private Long createBook(int stockQuantity) {
+        Book book = new Book();
+        book.setName("시골 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(stockQuantity);
+        itemService.saveItem(book);
+        return book.getId();
+    }
+
+    private int stockOf(Long itemId) {
+        return itemService.findOne(itemId).getStockQuantity();
+    }
+}